@@ -0,0 +1,135 @@
+package com.torresj.unseenusers.benchmarks;
+
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenusers.mappers.PageMapper;
+import com.torresj.unseenusers.mappers.UserMapper;
+import com.torresj.unseenusers.repositories.queries.UserView;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Encode and decode time of a user and a page of users in every negotiated format, JSON with and
+ * without the gzip response compression. Payload sizes are printed when each trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatBenchmark {
+
+  @Param({"json", "json-gzip", "smile", "cbor"})
+  private String format;
+
+  @Param({"user", "page"})
+  private String payload;
+
+  private ObjectMapper objectMapper;
+  private boolean gzip;
+  private Object value;
+  private Class<?> type;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() throws IOException {
+    // Same features as the HTTP message converters, with the parameter names module of Boot
+    objectMapper =
+        switch (format) {
+          case "json", "json-gzip" -> builder().build();
+          case "smile" -> binary(new SmileFactory());
+          case "cbor" -> binary(new CBORFactory());
+          default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    gzip = format.equals("json-gzip");
+
+    UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+    value =
+        payload.equals("user")
+            ? userMapper.toUserDto(
+                GenerateUser("test@test.com", "test", Role.USER, AuthProvider.UNSEEN, true))
+            : new PageMapper(userMapper)
+                .toPageUser(
+                    new PageImpl<>(
+                            IntStream.range(0, 20)
+                                .mapToObj(
+                                    i ->
+                                        GenerateUser(
+                                            "test" + i + "@test.com",
+                                            "test",
+                                            Role.USER,
+                                            AuthProvider.UNSEEN,
+                                            true))
+                                .toList(),
+                            PageRequest.of(0, 20),
+                            1000)
+                        .map(
+                            userEntity ->
+                                new SpelAwareProxyProjectionFactory()
+                                    .createProjection(UserView.class, userEntity)));
+    type = value.getClass();
+    encoded = encode();
+    System.out.printf("%n%s %s payload: %d bytes%n", format, payload, encoded.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+    try (OutputStream output = gzip ? new GZIPOutputStream(bytes) : bytes) {
+      objectMapper.writeValue(output, value);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Benchmark
+  public Object decode() throws IOException {
+    try (InputStream input =
+        gzip
+            ? new GZIPInputStream(new ByteArrayInputStream(encoded))
+            : new ByteArrayInputStream(encoded)) {
+      return objectMapper.readValue(input, type);
+    }
+  }
+
+  private static Jackson2ObjectMapperBuilder builder() {
+    return Jackson2ObjectMapperBuilder.json().findModulesViaServiceLoader(true);
+  }
+
+  private static ObjectMapper binary(JsonFactory factory) {
+    return builder()
+        .factory(factory)
+        .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+  }
+}
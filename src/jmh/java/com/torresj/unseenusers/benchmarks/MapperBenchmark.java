@@ -0,0 +1,82 @@
+package com.torresj.unseenusers.benchmarks;
+
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.mappers.PageMapper;
+import com.torresj.unseenusers.mappers.UserMapper;
+import com.torresj.unseenusers.repositories.queries.UserView;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+  private UserMapper userMapper;
+  private PageMapper pageMapper;
+  private UserEntity userEntity;
+  private UserView userView;
+  private Page<UserView> page;
+
+  @Setup
+  public void setUp() {
+    userMapper = Mappers.getMapper(UserMapper.class);
+    pageMapper = new PageMapper(userMapper);
+    userEntity = GenerateUser("test@test.com", "test", Role.USER, AuthProvider.UNSEEN, true);
+
+    // Projections are proxies over the selected columns, as returned by Spring Data
+    ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    userView = projectionFactory.createProjection(UserView.class, userEntity);
+
+    List<UserView> users =
+        IntStream.range(0, 20)
+            .mapToObj(
+                i ->
+                    GenerateUser(
+                        "test" + i + "@test.com", "test", Role.USER, AuthProvider.UNSEEN, true))
+            .map(user -> projectionFactory.createProjection(UserView.class, user))
+            .toList();
+    page = new PageImpl<>(users, PageRequest.of(0, 20), 1000);
+  }
+
+  @Benchmark
+  public UserDto toUserDto() {
+    return userMapper.toUserDto(userEntity);
+  }
+
+  @Benchmark
+  public UserDto toUserDtoFromView() {
+    return userMapper.toUserDto(userView);
+  }
+
+  @Benchmark
+  public PageUserDto toPageUser() {
+    return pageMapper.toPageUser(page);
+  }
+}
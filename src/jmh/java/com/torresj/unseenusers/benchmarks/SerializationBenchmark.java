@@ -0,0 +1,84 @@
+package com.torresj.unseenusers.benchmarks;
+
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.mappers.PageMapper;
+import com.torresj.unseenusers.mappers.UserMapper;
+import com.torresj.unseenusers.repositories.queries.UserView;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+  private ObjectMapper objectMapper;
+  private UserDto user;
+  private PageUserDto page;
+
+  @Setup
+  public void setUp() {
+    // Same modules Spring MVC registers for the HTTP message converters
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+    user =
+        userMapper.toUserDto(
+            GenerateUser("test@test.com", "test", Role.USER, AuthProvider.UNSEEN, true));
+    page =
+        new PageMapper(userMapper)
+            .toPageUser(
+                new PageImpl<>(
+                        IntStream.range(0, 20)
+                            .mapToObj(
+                                i ->
+                                    GenerateUser(
+                                        "test" + i + "@test.com",
+                                        "test",
+                                        Role.USER,
+                                        AuthProvider.UNSEEN,
+                                        true))
+                            .toList(),
+                        PageRequest.of(0, 20),
+                        1000)
+                    .map(
+                        userEntity ->
+                            new SpelAwareProxyProjectionFactory()
+                                .createProjection(UserView.class, userEntity)));
+  }
+
+  @Benchmark
+  public byte[] serializeUser() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(user);
+  }
+
+  @Benchmark
+  public byte[] serializePageUser() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(page);
+  }
+}
@@ -0,0 +1,74 @@
+package com.torresj.unseenusers.benchmarks;
+
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenusers.cache.UserJsonCache;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.mappers.UserMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Bytes written for a single user: mapped and serialized on every call, serialized from the cached
+ * UserDto, or read from UserJsonCache. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJsonBenchmark {
+
+  private ObjectMapper objectMapper;
+  private UserMapper userMapper;
+  private UserJsonCache userJsonCache;
+  private UserEntity userEntity;
+  private UserDto user;
+
+  @Setup
+  public void setUp() {
+    // Same modules Spring MVC registers for the HTTP message converters
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    userMapper = Mappers.getMapper(UserMapper.class);
+    userJsonCache =
+        new UserJsonCache(objectMapper, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+    userEntity = GenerateUser("test@test.com", "test", Role.USER, AuthProvider.UNSEEN, true);
+    user = userMapper.toUserDto(userEntity);
+    userJsonCache.json(user);
+  }
+
+  @Benchmark
+  public byte[] mapAndSerialize() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(userMapper.toUserDto(userEntity));
+  }
+
+  @Benchmark
+  public byte[] serialize() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(user);
+  }
+
+  @Benchmark
+  public byte[] cachedJson() {
+    return userJsonCache.json(user);
+  }
+}
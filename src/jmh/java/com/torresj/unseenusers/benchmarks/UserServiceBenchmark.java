@@ -0,0 +1,124 @@
+package com.torresj.unseenusers.benchmarks;
+
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseen.repositories.mutations.UserMutationRepository;
+import com.torresj.unseenusers.UnseenUsersApplication;
+import com.torresj.unseenusers.cache.UserCache;
+import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.dtos.UserRegisterDto;
+import com.torresj.unseenusers.exceptions.PasswordHashingRejectedException;
+import com.torresj.unseenusers.exceptions.UserAlreadyExistsException;
+import com.torresj.unseenusers.exceptions.UserNotFoundException;
+import com.torresj.unseenusers.services.UserService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/** UserService against an H2 database seeded with {@code users} generated users. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+  private static final int PAGE_SIZE = 20;
+
+  @Param({"10000"})
+  private int users;
+
+  private ConfigurableApplicationContext context;
+  private UserService userService;
+  private UserCache userCache;
+  private List<Long> ids;
+  private final AtomicLong registered = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context =
+        new SpringApplicationBuilder(UnseenUsersApplication.class)
+            .profiles("test")
+            .web(WebApplicationType.NONE)
+            .properties("logging.level.com.torresj=warn")
+            .run();
+    userService = context.getBean(UserService.class);
+    userCache = context.getBean(UserCache.class);
+
+    // Seeding DB
+    UserMutationRepository userMutationRepository = context.getBean(UserMutationRepository.class);
+    ids = new ArrayList<>(users);
+    List<UserEntity> batch = new ArrayList<>();
+    for (int i = 0; i < users; i++) {
+      UserEntity userEntity =
+          GenerateUser("user" + i + "@unseen.com", "test", Role.USER, AuthProvider.UNSEEN, true);
+      userEntity.setId(null);
+      batch.add(userEntity);
+      if (batch.size() == 1000 || i == users - 1) {
+        userMutationRepository.saveAll(batch).forEach(saved -> ids.add(saved.getId()));
+        batch.clear();
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public PageUserDto users() {
+    int page = ThreadLocalRandom.current().nextInt(users / PAGE_SIZE);
+    return userService.users(page, PAGE_SIZE, null, null);
+  }
+
+  @Benchmark
+  public PageUserDto usersWithFilter() {
+    return userService.users(0, PAGE_SIZE, "user1", null);
+  }
+
+  @Benchmark
+  public UserDto userCached() throws UserNotFoundException {
+    return userService.user(randomId());
+  }
+
+  @Benchmark
+  public UserDto userNotCached() throws UserNotFoundException {
+    long id = randomId();
+    userCache.evict(id);
+    return userService.user(id);
+  }
+
+  @Benchmark
+  public UserDto register() throws UserAlreadyExistsException, PasswordHashingRejectedException {
+    String email = "new" + registered.incrementAndGet() + "@unseen.com";
+    return userService.register(new UserRegisterDto(email, email, "test"));
+  }
+
+  private long randomId() {
+    return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+  }
+}
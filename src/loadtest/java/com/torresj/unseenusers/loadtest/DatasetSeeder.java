@@ -0,0 +1,157 @@
+package com.torresj.unseenusers.loadtest;
+
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateGroup;
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateIteration;
+import static com.torresj.unseenusers.utils.EntityGenerator.GeneratePair;
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.GroupEntity;
+import com.torresj.unseen.entities.IterationEntity;
+import com.torresj.unseen.entities.PairEntity;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseen.entities.UserGroupRelationEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Seeds users, groups, iterations and pairs in JDBC batches, committing and clearing the
+ * persistence context every thousand users or groups, so millions of rows fit in memory. Data is
+ * generated from the seed option: the same options give the same emails, memberships and pairs on
+ * every run.
+ */
+final class DatasetSeeder {
+
+  private static final int COMMIT_INTERVAL = 1000;
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final LoadTestOptions options;
+
+  DatasetSeeder(EntityManagerFactory entityManagerFactory, LoadTestOptions options) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.options = options;
+  }
+
+  static String email(int user) {
+    return "user" + user + "@loadtest.com";
+  }
+
+  /** Returns the id of every seeded user, indexed like their emails. */
+  long[] seed() throws InterruptedException {
+    long[] ids = new long[options.users()];
+    long start = System.nanoTime();
+    parallel(options.users(), (from, to) -> seedUsers(from, to, ids));
+    log("users", options.users(), start);
+
+    start = System.nanoTime();
+    parallel(options.groups(), (from, to) -> seedGroups(from, to, ids));
+    log("groups", options.groups(), start);
+    return ids;
+  }
+
+  private void seedUsers(int from, int to, long[] ids) {
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      entityManager.getTransaction().begin();
+      for (int user = from; user < to; user++) {
+        Role role = user % 100 == 0 ? Role.ADMIN : Role.USER;
+        UserEntity userEntity =
+            GenerateUser(email(user), "loadtest", role, AuthProvider.UNSEEN, true);
+        userEntity.setId(null);
+        entityManager.persist(userEntity);
+        ids[user] = userEntity.getId();
+        if ((user - from + 1) % COMMIT_INTERVAL == 0) commit(entityManager);
+      }
+      entityManager.getTransaction().commit();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /** Every group has random members, the first one owns it and they gift each other in a ring. */
+  private void seedGroups(int from, int to, long[] ids) {
+    Random random = new Random(options.seed() + from);
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      entityManager.getTransaction().begin();
+      for (int group = from; group < to; group++) {
+        long[] members =
+            random
+                .ints(0, ids.length)
+                .distinct()
+                .limit(options.membersPerGroup())
+                .mapToLong(user -> ids[user])
+                .toArray();
+        GroupEntity groupEntity = GenerateGroup("Group " + group, "G" + group, members[0], false);
+        groupEntity.setId(null);
+        entityManager.persist(groupEntity);
+        long groupId = groupEntity.getId();
+
+        for (long member : members) {
+          entityManager.persist(
+              UserGroupRelationEntity.builder().userId(member).groupId(groupId).build());
+        }
+        for (int iteration = 0; iteration < options.iterationsPerGroup(); iteration++) {
+          IterationEntity iterationEntity = GenerateIteration(groupId);
+          iterationEntity.setId(null);
+          entityManager.persist(iterationEntity);
+          long iterationId = iterationEntity.getId();
+          for (int member = 0; member < members.length; member++) {
+            PairEntity pairEntity =
+                GeneratePair(iterationId, members[member], members[(member + 1) % members.length]);
+            pairEntity.setId(null);
+            entityManager.persist(pairEntity);
+          }
+        }
+
+        if ((group - from + 1) % COMMIT_INTERVAL == 0) commit(entityManager);
+      }
+      entityManager.getTransaction().commit();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private static void commit(EntityManager entityManager) {
+    entityManager.getTransaction().commit();
+    entityManager.clear();
+    entityManager.getTransaction().begin();
+  }
+
+  /** Splits [0, size) in one range per seed thread. */
+  private void parallel(int size, RangeSeeder seeder) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(options.seedThreads());
+    try {
+      int chunk = Math.max(1, (size + options.seedThreads() - 1) / options.seedThreads());
+      List<Future<?>> chunks = new ArrayList<>();
+      for (int from = 0; from < size; from += chunk) {
+        int start = from;
+        int end = Math.min(size, from + chunk);
+        chunks.add(executor.submit(() -> seeder.seed(start, end)));
+      }
+      for (Future<?> future : chunks) future.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Seeding failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void log(String entities, int count, long start) {
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    System.out.printf("Seeded %d %s in %d ms%n", count, entities, millis);
+  }
+
+  @FunctionalInterface
+  private interface RangeSeeder {
+    void seed(int from, int to);
+  }
+}
@@ -0,0 +1,68 @@
+package com.torresj.unseenusers.loadtest;
+
+import com.torresj.unseenusers.UnseenUsersApplication;
+import com.torresj.unseenusers.cache.UserEmailFilter;
+import com.torresj.unseenusers.search.UserSearchIndex;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the service on a random port, seeds its database and runs the workload against it over
+ * HTTP, so requests go through Tomcat, the interceptors and {@code UserController}.
+ *
+ * <p>With {@code --database=h2} the in-memory database of the {@code local} profile is used. With
+ * {@code --database=mariadb} both datasources point to {@code --jdbc-url} and the schema is
+ * created or updated by Hibernate, the database should be empty for reproducible runs.
+ */
+public class LoadTest {
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    System.out.printf(
+        "Seeding %s with %d users and %d groups%n",
+        options.database(), options.users(), options.groups());
+
+    try (ConfigurableApplicationContext context = start(options)) {
+      EntityManagerFactory entityManagerFactory = context.getBean(EntityManagerFactory.class);
+      long[] ids = new DatasetSeeder(entityManagerFactory, options).seed();
+
+      // Built at startup, before the users were seeded
+      context.getBean(UserEmailFilter.class).rebuild();
+      context.getBean(UserSearchIndex.class).rebuild();
+
+      String baseUrl =
+          "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+      System.out.printf(
+          "Running %s warmup and %s workload with %d threads%n",
+          options.warmup(), options.duration(), options.threads());
+      new Workload(options, baseUrl, ids).run().print(System.out);
+    }
+  }
+
+  private static ConfigurableApplicationContext start(LoadTestOptions options) {
+    List<String> arguments = new ArrayList<>();
+    arguments.add("--server.port=0");
+    arguments.add("--grpc.port=0");
+    arguments.add("--logging.level.com.torresj=warn");
+
+    SpringApplicationBuilder application =
+        new SpringApplicationBuilder(UnseenUsersApplication.class);
+    if (options.database().equals("h2")) {
+      application.profiles("local");
+    } else {
+      for (String datasource : List.of("queries", "mutations")) {
+        String prefix = "spring.datasource." + datasource + ".";
+        arguments.add("--" + prefix + "url=" + options.jdbcUrl());
+        arguments.add("--" + prefix + "username=" + options.jdbcUsername());
+        arguments.add("--" + prefix + "password=" + options.jdbcPassword());
+        arguments.add("--" + prefix + "hikari.maximum-pool-size=" + options.threads());
+      }
+      arguments.add("--spring.jpa.properties.hibernate.hbm2ddl.auto=update");
+    }
+    // As arguments, so they override the configuration files
+    return application.run(arguments.toArray(new String[0]));
+  }
+}
@@ -0,0 +1,73 @@
+package com.torresj.unseenusers.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of a load test run, given as {@code --name=value} arguments. Every option has a
+ * default, so a run without arguments seeds H2 with 100000 users and runs the default mix.
+ */
+record LoadTestOptions(
+    String database,
+    String jdbcUrl,
+    String jdbcUsername,
+    String jdbcPassword,
+    int users,
+    int groups,
+    int membersPerGroup,
+    int iterationsPerGroup,
+    int seedThreads,
+    long seed,
+    int threads,
+    Duration warmup,
+    Duration duration,
+    Map<Operation, Integer> mix) {
+
+  static final String DEFAULT_MIX =
+      "list=15,filter=10,id=30,email=20,register=10,update=10,delete=5";
+
+  static LoadTestOptions parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("="))
+        throw new IllegalArgumentException("Options must be given as --name=value: " + arg);
+      values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+    }
+
+    LoadTestOptions options =
+        new LoadTestOptions(
+            values.getOrDefault("database", "h2"),
+            values.getOrDefault("jdbc-url", "jdbc:mariadb://localhost:3306/unseen"),
+            values.getOrDefault("jdbc-username", "unseen"),
+            values.getOrDefault("jdbc-password", "unseen"),
+            Integer.parseInt(values.getOrDefault("users", "100000")),
+            Integer.parseInt(values.getOrDefault("groups", "10000")),
+            Integer.parseInt(values.getOrDefault("members-per-group", "5")),
+            Integer.parseInt(values.getOrDefault("iterations-per-group", "2")),
+            Integer.parseInt(
+                values.getOrDefault(
+                    "seed-threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+            Long.parseLong(values.getOrDefault("seed", "42")),
+            Integer.parseInt(values.getOrDefault("threads", "16")),
+            Duration.parse("PT" + values.getOrDefault("warmup", "10s")),
+            Duration.parse("PT" + values.getOrDefault("duration", "60s")),
+            parseMix(values.getOrDefault("mix", DEFAULT_MIX)));
+    if (!options.database.equals("h2") && !options.database.equals("mariadb"))
+      throw new IllegalArgumentException("Database must be h2 or mariadb: " + options.database);
+    if (options.membersPerGroup > options.users)
+      throw new IllegalArgumentException("There are not enough users for the group members");
+    return options;
+  }
+
+  /** Weights of every operation, for example {@code list=15,id=30}. */
+  private static Map<Operation, Integer> parseMix(String mix) {
+    Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    for (String entry : mix.split(",")) {
+      String[] weight = entry.split("=");
+      weights.put(Operation.byName(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+    }
+    return weights;
+  }
+}
@@ -0,0 +1,41 @@
+package com.torresj.unseenusers.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/** Throughput and latency percentiles of every operation of a run, latencies in microseconds. */
+record LoadTestReport(
+    Duration duration, Map<Operation, Histogram> latencies, Map<Operation, Long> errors) {
+
+  void print(PrintStream out) {
+    double seconds = duration.toMillis() / 1000.0;
+    out.printf(
+        "%-26s %10s %8s %10s %10s %10s %10s %10s%n",
+        "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+    latencies.forEach(
+        (operation, histogram) ->
+            out.printf(
+                "%-26s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                operation.endpoint(),
+                histogram.getTotalCount(),
+                errors.getOrDefault(operation, 0L),
+                histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())));
+
+    long requests = latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    out.printf("%-26s %10d %8d %10.1f%n", "total", requests, total(errors), requests / seconds);
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+
+  private static long total(Map<Operation, Long> counts) {
+    return counts.values().stream().mapToLong(Long::longValue).sum();
+  }
+}
@@ -0,0 +1,33 @@
+package com.torresj.unseenusers.loadtest;
+
+import java.util.Arrays;
+
+/** Requests of the workload, each one sent to a {@code UserController} endpoint. */
+enum Operation {
+  LIST("list", "GET /v1/users"),
+  FILTER("filter", "GET /v1/users?filter"),
+  GET_BY_ID("id", "GET /v1/users/{id}"),
+  GET_BY_EMAIL("email", "GET /v1/users/me"),
+  REGISTER("register", "POST /v1/users/register"),
+  UPDATE("update", "PATCH /v1/users/{id}"),
+  DELETE("delete", "DELETE /v1/users/{id}");
+
+  private final String option;
+  private final String endpoint;
+
+  Operation(String option, String endpoint) {
+    this.option = option;
+    this.endpoint = endpoint;
+  }
+
+  String endpoint() {
+    return endpoint;
+  }
+
+  static Operation byName(String option) {
+    return Arrays.stream(values())
+        .filter(operation -> operation.option.equals(option))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + option));
+  }
+}
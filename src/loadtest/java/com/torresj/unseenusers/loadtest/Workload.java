@@ -0,0 +1,171 @@
+package com.torresj.unseenusers.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Closed-loop workload: every thread sends one request at a time, picking the operation by the
+ * mix weights. Registered users are only deleted by the thread that registered them, so reads and
+ * updates of seeded users never miss. Latencies are recorded per operation in microseconds, once
+ * the warmup is over.
+ */
+final class Workload {
+
+  private static final int PAGE_SIZE = 20;
+
+  private final LoadTestOptions options;
+  private final String baseUrl;
+  private final long[] ids;
+  private final HttpClient client = HttpClient.newHttpClient();
+  private final Operation[] operations;
+
+  Workload(LoadTestOptions options, String baseUrl, long[] ids) {
+    this.options = options;
+    this.baseUrl = baseUrl;
+    this.ids = ids;
+
+    // One slot per weight unit, so a uniform pick follows the mix
+    List<Operation> slots = new ArrayList<>();
+    options
+        .mix()
+        .forEach(
+            (operation, weight) -> {
+              for (int i = 0; i < weight; i++) slots.add(operation);
+            });
+    if (slots.isEmpty()) throw new IllegalArgumentException("Mix has no operations");
+    this.operations = slots.toArray(new Operation[0]);
+  }
+
+  LoadTestReport run() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(options.threads());
+    long start = System.nanoTime();
+    long measureFrom = start + options.warmup().toNanos();
+    long end = measureFrom + options.duration().toNanos();
+    try {
+      List<Future<Results>> workers = new ArrayList<>();
+      for (int worker = 0; worker < options.threads(); worker++) {
+        int id = worker;
+        workers.add(executor.submit(() -> work(id, measureFrom, end)));
+      }
+
+      Results total = new Results();
+      for (Future<Results> worker : workers) total.add(worker.get());
+      return new LoadTestReport(options.duration(), total.latencies, total.errors);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Results work(int worker, long measureFrom, long end) throws InterruptedException {
+    SplittableRandom random = new SplittableRandom(options.seed() + worker);
+    Deque<Long> registered = new ArrayDeque<>();
+    Results results = new Results();
+    long sequence = 0;
+
+    long now = System.nanoTime();
+    while (now < end) {
+      Operation operation = operations[random.nextInt(operations.length)];
+      if (operation == Operation.DELETE && registered.isEmpty()) operation = Operation.REGISTER;
+      HttpRequest request = request(operation, random, worker, sequence++, registered);
+
+      long sent = System.nanoTime();
+      boolean success;
+      try {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        success = response.statusCode() / 100 == 2;
+        if (success && operation == Operation.REGISTER) registered.push(registeredId(response));
+      } catch (IOException e) {
+        success = false;
+      }
+      now = System.nanoTime();
+
+      if (sent >= measureFrom && now < end) results.record(operation, (now - sent) / 1000, success);
+    }
+    return results;
+  }
+
+  private HttpRequest request(
+      Operation operation,
+      SplittableRandom random,
+      int worker,
+      long sequence,
+      Deque<Long> registered) {
+    int user = random.nextInt(ids.length);
+    int pages = Math.max(1, ids.length / PAGE_SIZE);
+    return switch (operation) {
+      case LIST -> get("/v1/users?page=" + random.nextInt(pages) + "&elements=" + PAGE_SIZE);
+      case FILTER -> get("/v1/users?page=0&elements=" + PAGE_SIZE + "&filter=user" + user);
+      case GET_BY_ID -> get("/v1/users/" + ids[user]);
+      case GET_BY_EMAIL -> get("/v1/users/me?email=" + encode(DatasetSeeder.email(user)));
+      case REGISTER -> json("POST", "/v1/users/register", registerBody(worker, sequence));
+      case UPDATE -> json("PATCH", "/v1/users/" + ids[user], "{\"name\":\"User " + user + "\"}");
+      case DELETE -> delete("/v1/users/" + registered.pop());
+    };
+  }
+
+  /** Emails are unique between threads and runs against the same database. */
+  private static String registerBody(int worker, long sequence) {
+    String email = "new-" + worker + "-" + sequence + "-" + System.nanoTime() + "@loadtest.com";
+    return "{\"name\":\"" + email + "\",\"email\":\"" + email + "\",\"password\":\"loadtest\"}";
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .header("Accept", "application/json")
+        .GET()
+        .build();
+  }
+
+  private HttpRequest json(String method, String path, String body) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .header("Content-Type", "application/json")
+        .method(method, HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  private HttpRequest delete(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).DELETE().build();
+  }
+
+  private static long registeredId(HttpResponse<?> response) {
+    String location = response.headers().firstValue("Location").orElseThrow();
+    return Long.parseLong(location.substring(location.lastIndexOf('/') + 1));
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static class Results {
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+    private void record(Operation operation, long micros, boolean success) {
+      latencies.computeIfAbsent(operation, key -> new Histogram(3)).recordValue(micros);
+      if (!success) errors.merge(operation, 1L, Long::sum);
+    }
+
+    private void add(Results other) {
+      other.latencies.forEach(
+          (operation, histogram) ->
+              latencies.computeIfAbsent(operation, key -> new Histogram(3)).add(histogram));
+      other.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+    }
+  }
+}
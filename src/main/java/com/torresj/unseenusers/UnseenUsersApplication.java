@@ -4,9 +4,11 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EntityScan("com.torresj.unseen.entities")
+@EntityScan({"com.torresj.unseen.entities", "com.torresj.unseenusers.entities"})
+@EnableScheduling
 public class UnseenUsersApplication {
 
 	public static void main(String[] args) {
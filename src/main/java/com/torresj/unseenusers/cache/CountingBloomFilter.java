@@ -0,0 +1,110 @@
+package com.torresj.unseenusers.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter with 4-bit counters instead of bits, so elements can be removed. Counters saturate
+ * at 15 and are never decremented after that, which can only add false positives. Lock-free, all
+ * counters are updated with compare-and-set.
+ */
+class CountingBloomFilter {
+
+  private static final int COUNTERS_PER_WORD = 16;
+  private static final long COUNTER_MASK = 0xFL;
+
+  private final AtomicLongArray words;
+  private final long counters;
+  private final int hashes;
+  private final AtomicLong nonZeroCounters = new AtomicLong();
+  private final AtomicLong elements = new AtomicLong();
+
+  CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int length = Math.toIntExact((m + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+    this.words = new AtomicLongArray(length);
+    this.counters = (long) words.length() * COUNTERS_PER_WORD;
+    this.hashes = Math.max(1, (int) Math.round((double) counters / n * Math.log(2)));
+  }
+
+  void put(String value) {
+    long[] indexes = indexes(value);
+    for (long index : indexes) update(index, 1);
+    elements.incrementAndGet();
+  }
+
+  /** Only values put in the filter can be removed, otherwise other values may be lost. */
+  void remove(String value) {
+    long[] indexes = indexes(value);
+    for (long index : indexes) update(index, -1);
+    elements.decrementAndGet();
+  }
+
+  boolean mightContain(String value) {
+    for (long index : indexes(value)) {
+      if (counter(words.get((int) (index / COUNTERS_PER_WORD)), index) == 0) return false;
+    }
+    return true;
+  }
+
+  /** Probability of a false positive with the current number of counters in use. */
+  double expectedFalsePositiveRate() {
+    return Math.pow((double) nonZeroCounters.get() / counters, hashes);
+  }
+
+  long elements() {
+    return Math.max(0, elements.get());
+  }
+
+  long memoryBytes() {
+    return (long) words.length() * Long.BYTES;
+  }
+
+  private void update(long index, int delta) {
+    int word = (int) (index / COUNTERS_PER_WORD);
+    int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+    while (true) {
+      long current = words.get(word);
+      long counter = counter(current, index);
+      if (counter == COUNTER_MASK || (delta < 0 && counter == 0)) return;
+      long updated = (current & ~(COUNTER_MASK << shift)) | ((counter + delta) << shift);
+      if (words.compareAndSet(word, current, updated)) {
+        if (counter == 0) nonZeroCounters.incrementAndGet();
+        else if (counter + delta == 0) nonZeroCounters.decrementAndGet();
+        return;
+      }
+    }
+  }
+
+  private static long counter(long word, long index) {
+    return (word >>> ((index % COUNTERS_PER_WORD) * 4)) & COUNTER_MASK;
+  }
+
+  /** Double hashing over two 64-bit hashes of the value, see Kirsch and Mitzenmacher. */
+  private long[] indexes(String value) {
+    long hash1 = mix(fnv1a(value));
+    long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+    long[] indexes = new long[hashes];
+    for (int i = 0; i < hashes; i++) {
+      indexes[i] = Math.floorMod(hash1 + i * hash2, counters);
+    }
+    return indexes;
+  }
+
+  private static long fnv1a(String value) {
+    long hash = 0xCBF29CE484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001B3L;
+    }
+    return hash;
+  }
+
+  private static long mix(long hash) {
+    hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+    return hash ^ (hash >>> 31);
+  }
+}
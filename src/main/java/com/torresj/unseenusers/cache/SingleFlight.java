@@ -0,0 +1,74 @@
+package com.torresj.unseenusers.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller runs the loader and the ones
+ * arriving while it is in flight wait for its result, or its exception, instead of running their
+ * own. Nothing is kept once the call completes, caching is left to the caller.
+ */
+public class SingleFlight<K, V> {
+
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final Counter executed;
+  private final Counter shared;
+
+  public SingleFlight(String name, MeterRegistry meterRegistry) {
+    this.executed = calls(meterRegistry, name, "executed");
+    this.shared = calls(meterRegistry, name, "shared");
+  }
+
+  public <E extends Exception> V execute(K key, Loader<V, E> loader) throws E {
+    CompletableFuture<V> call = new CompletableFuture<>();
+    CompletableFuture<V> current = inFlight.putIfAbsent(key, call);
+    if (current != null) {
+      shared.increment();
+      return await(current);
+    }
+
+    executed.increment();
+    try {
+      V value = loader.load();
+      call.complete(value);
+      return value;
+    } catch (Exception | Error e) {
+      call.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, call);
+    }
+  }
+
+  /** Exceptions thrown by the loader of the same key are rethrown as they are. */
+  @SuppressWarnings("unchecked")
+  private static <V, E extends Exception> V await(CompletableFuture<V> call) throws E {
+    try {
+      return call.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error error) throw error;
+      throw (E) cause;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for an in-flight call", e);
+    }
+  }
+
+  private static Counter calls(MeterRegistry meterRegistry, String name, String result) {
+    return Counter.builder("users.single-flight.calls")
+        .description("Calls run by their caller or shared with an identical one in flight")
+        .tag("name", name)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  @FunctionalInterface
+  public interface Loader<V, E extends Exception> {
+    V load() throws E;
+  }
+}
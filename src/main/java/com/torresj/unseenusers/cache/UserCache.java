@@ -0,0 +1,72 @@
+package com.torresj.unseenusers.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.torresj.unseenusers.dtos.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class UserCache {
+
+  private final Cache<Long, UserDto> usersById;
+  private final Cache<String, UserDto> usersByEmail;
+
+  public UserCache(
+      @Value("${cache.users.maximum-size:10000}") long maximumSize,
+      @Value("${cache.users.expire-after-write:5m}") Duration expireAfterWrite,
+      MeterRegistry meterRegistry) {
+    this.usersById = buildCache(maximumSize, expireAfterWrite);
+    this.usersByEmail = buildCache(maximumSize, expireAfterWrite);
+
+    // Hits, misses, evictions and size are exported as cache.* metrics
+    CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users-by-id");
+    CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "users-by-email");
+  }
+
+  public Optional<UserDto> get(long id) {
+    return Optional.ofNullable(usersById.getIfPresent(id));
+  }
+
+  public Optional<UserDto> get(String email) {
+    return Optional.ofNullable(usersByEmail.getIfPresent(email));
+  }
+
+  public void put(UserDto user) {
+    usersById.put(user.getId(), user);
+    usersByEmail.put(user.getEmail(), user);
+  }
+
+  public void evict(long id) {
+    UserDto user = usersById.getIfPresent(id);
+    usersById.invalidate(id);
+    if (user != null) usersByEmail.invalidate(user.getEmail());
+    log.debug("[USER CACHE] User " + id + " evicted");
+  }
+
+  public void evict(String email) {
+    UserDto user = usersByEmail.getIfPresent(email);
+    usersByEmail.invalidate(email);
+    if (user != null) usersById.invalidate(user.getId());
+    log.debug("[USER CACHE] User " + email + " evicted");
+  }
+
+  public void clear() {
+    usersById.invalidateAll();
+    usersByEmail.invalidateAll();
+  }
+
+  private static <K> Cache<K, UserDto> buildCache(long maximumSize, Duration expireAfterWrite) {
+    return Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite)
+        .recordStats()
+        .build();
+  }
+}
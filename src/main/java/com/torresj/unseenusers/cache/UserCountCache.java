@@ -0,0 +1,96 @@
+package com.torresj.unseenusers.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenusers.repositories.queries.UserViewQueryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estimated number of users per filter and role. A count is read from DB the first time it is
+ * asked for, then every cached count matching a registered or deleted user is adjusted in memory.
+ *
+ * <p>Users written by other instances, or by transactions rolled back after the adjustment, make
+ * the counts drift until they expire and are read again.
+ */
+@Component
+@Slf4j
+public class UserCountCache {
+
+  private final UserViewQueryRepository userViewQueryRepository;
+  private final Cache<CountKey, AtomicLong> counts;
+
+  public UserCountCache(
+      UserViewQueryRepository userViewQueryRepository,
+      @Value("${cache.counts.maximum-size:1000}") long maximumSize,
+      @Value("${cache.counts.expire-after-write:5m}") Duration expireAfterWrite,
+      MeterRegistry meterRegistry) {
+    this.userViewQueryRepository = userViewQueryRepository;
+    this.counts =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, counts, "users-counts");
+  }
+
+  public long count(String filter, Role role) {
+    return counts.get(new CountKey(normalize(filter), role), this::countFromDB).get();
+  }
+
+  public void added(String email, Role role) {
+    adjust(email, role, 1);
+  }
+
+  public void removed(String email, Role role) {
+    adjust(email, role, -1);
+  }
+
+  public void clear() {
+    counts.invalidateAll();
+  }
+
+  private void adjust(String email, Role role, int delta) {
+    String normalizedEmail = normalize(email);
+    counts
+        .asMap()
+        .forEach(
+            (key, count) -> {
+              if (key.matches(normalizedEmail, role)) count.addAndGet(delta);
+            });
+  }
+
+  private AtomicLong countFromDB(CountKey key) {
+    log.debug("[USER COUNT CACHE] Counting users for filter " + key.filter + " role " + key.role);
+    long count;
+    if (key.filter != null && key.role != null) {
+      count = userViewQueryRepository.countByEmailContainingIgnoreCaseAndRole(key.filter, key.role);
+    } else if (key.role != null) {
+      count = userViewQueryRepository.countByRole(key.role);
+    } else if (key.filter != null) {
+      count = userViewQueryRepository.countByEmailContainingIgnoreCase(key.filter);
+    } else {
+      count = userViewQueryRepository.countBy();
+    }
+    return new AtomicLong(count);
+  }
+
+  private static String normalize(String text) {
+    return text == null ? null : text.toLowerCase(Locale.ROOT);
+  }
+
+  private record CountKey(String filter, Role role) {
+    private boolean matches(String email, Role role) {
+      return (this.role == null || this.role == role)
+          && (filter == null || (email != null && email.contains(filter)));
+    }
+  }
+}
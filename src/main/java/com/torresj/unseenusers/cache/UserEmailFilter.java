@@ -0,0 +1,182 @@
+package com.torresj.unseenusers.cache;
+
+import com.torresj.unseenusers.repositories.queries.UserExportQueryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Probabilistic set of registered emails. A negative answer means the email is not registered, so
+ * the DB lookup can be skipped. A positive answer must still be confirmed against the DB.
+ *
+ * <p>The filter is built from the query datasource at startup and rebuilt periodically on its own
+ * thread, so emails registered by other instances are eventually included. Until then they are
+ * reported as not registered, so negative answers are best effort: they are only used where the DB
+ * still has the last word, the unique email constraint on register. Until the first build, every
+ * email is reported as possibly registered. Emails are compared ignoring case, as the DB does.
+ *
+ * <p>Only emails added since the build are removed on delete. Removing an email the build never
+ * read would break other emails, so deletes of older users leave a false positive until next build.
+ */
+@Component
+@Slf4j
+public class UserEmailFilter {
+
+  private final UserExportQueryRepository userExportQueryRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final long expectedInsertions;
+  private final double falsePositiveRate;
+  private final long rebuildInterval;
+  private final ScheduledExecutorService rebuildExecutor;
+  private final Counter absentChecks;
+  private final Counter presentChecks;
+  private volatile Generation filter;
+  private volatile Generation building;
+
+  public UserEmailFilter(
+      UserExportQueryRepository userExportQueryRepository,
+      @Qualifier("queriesTransactionManager") PlatformTransactionManager transactionManager,
+      @Value("${cache.emails.expected-insertions:1000000}") long expectedInsertions,
+      @Value("${cache.emails.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${cache.emails.rebuild-interval:3600000}") long rebuildInterval,
+      MeterRegistry meterRegistry) {
+    this.userExportQueryRepository = userExportQueryRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveRate = falsePositiveRate;
+    this.rebuildInterval = rebuildInterval;
+    this.rebuildExecutor =
+        ExecutorServiceMetrics.monitor(
+            meterRegistry,
+            Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("email-filter-")),
+            "email-filter");
+
+    this.absentChecks = meterRegistry.counter("users.emails.filter.checks", "result", "absent");
+    this.presentChecks = meterRegistry.counter("users.emails.filter.checks", "result", "present");
+    Gauge.builder("users.emails.filter.false-positives.configured", () -> falsePositiveRate)
+        .register(meterRegistry);
+    Gauge.builder("users.emails.filter.false-positives.expected", this::expectedFalsePositiveRate)
+        .register(meterRegistry);
+    Gauge.builder("users.emails.filter.capacity", () -> expectedInsertions)
+        .register(meterRegistry);
+    Gauge.builder("users.emails.filter.elements", this::elements).register(meterRegistry);
+    Gauge.builder("users.emails.filter.memory", this::memoryBytes)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /** Returns false only if the email is not registered. */
+  public boolean mightContain(String email) {
+    Generation current = filter;
+    if (current == null) return true;
+    boolean mightContain = current.filter.mightContain(normalize(email));
+    (mightContain ? presentChecks : absentChecks).increment();
+    return mightContain;
+  }
+
+  public void put(String email) {
+    Generation current = filter;
+    if (current != null) current.put(normalize(email));
+    Generation next = building;
+    if (next != null && next != current) next.put(normalize(email));
+  }
+
+  public void remove(String email) {
+    Generation current = filter;
+    if (current != null) current.remove(normalize(email));
+    Generation next = building;
+    if (next != null && next != current) next.remove(normalize(email));
+  }
+
+  /** Builds the filter right away and then every rebuild interval, off the shared scheduler. */
+  @PostConstruct
+  public void start() {
+    rebuildExecutor.scheduleWithFixedDelay(
+        this::rebuild, 0, rebuildInterval, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    rebuildExecutor.shutdownNow();
+  }
+
+  public synchronized void rebuild() {
+    log.debug("[USER EMAIL FILTER] Building email filter");
+    Generation next =
+        new Generation(new CountingBloomFilter(expectedInsertions, falsePositiveRate));
+
+    // Registrations during the build are added to both filters
+    building = next;
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            try (Stream<String> emails = userExportQueryRepository.streamEmails()) {
+              emails.map(UserEmailFilter::normalize).forEach(next.filter::put);
+            }
+          });
+      filter = next;
+      log.info("[USER EMAIL FILTER] Email filter built with " + next.filter.elements() + " emails");
+    } catch (RuntimeException e) {
+      log.warn("[USER EMAIL FILTER] Email filter build failed: " + e.getMessage());
+    } finally {
+      building = null;
+    }
+  }
+
+  private static String normalize(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  private Number expectedFalsePositiveRate() {
+    Generation current = filter;
+    return current == null ? 1 : current.filter.expectedFalsePositiveRate();
+  }
+
+  private Number elements() {
+    Generation current = filter;
+    return current == null ? 0 : current.filter.elements();
+  }
+
+  private Number memoryBytes() {
+    Generation current = filter;
+    return current == null ? 0 : current.filter.memoryBytes();
+  }
+
+  /** A filter and the emails added to it since its build, the only ones it can safely remove. */
+  private static class Generation {
+
+    private final CountingBloomFilter filter;
+    private final Set<String> added = ConcurrentHashMap.newKeySet();
+
+    Generation(CountingBloomFilter filter) {
+      this.filter = filter;
+    }
+
+    void put(String email) {
+      if (added.add(email)) filter.put(email);
+    }
+
+    void remove(String email) {
+      if (added.remove(email)) filter.remove(email);
+    }
+  }
+}
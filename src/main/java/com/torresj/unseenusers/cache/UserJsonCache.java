@@ -0,0 +1,67 @@
+package com.torresj.unseenusers.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.torresj.unseenusers.dtos.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * UTF-8 JSON of users, serialized once per user version with the ObjectMapper of the HTTP message
+ * converters, so cached bytes are the same ones Jackson would write.
+ *
+ * <p>Logins change a user without touching updateAt, so they are part of the version. A changed
+ * user is a new key, the bytes of old versions are never served and get evicted by size or age.
+ */
+@Component
+public class UserJsonCache {
+
+  private final ObjectMapper objectMapper;
+  private final Cache<UserVersion, byte[]> usersJson;
+
+  public UserJsonCache(
+      ObjectMapper objectMapper,
+      @Value("${cache.json.maximum-size:10000}") long maximumSize,
+      @Value("${cache.json.expire-after-write:5m}") Duration expireAfterWrite,
+      MeterRegistry meterRegistry) {
+    this.objectMapper = objectMapper;
+    this.usersJson =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, usersJson, "users-json");
+  }
+
+  public byte[] json(UserDto user) {
+    return usersJson.get(UserVersion.of(user), version -> serialize(user));
+  }
+
+  public void clear() {
+    usersJson.invalidateAll();
+  }
+
+  private byte[] serialize(UserDto user) {
+    try {
+      return objectMapper.writeValueAsBytes(user);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private record UserVersion(
+      long id, LocalDateTime updateAt, long numLogins, LocalDateTime lastConnection) {
+    private static UserVersion of(UserDto user) {
+      return new UserVersion(
+          user.getId(), user.getUpdateAt(), user.getNumLogins(), user.getLastConnection());
+    }
+  }
+}
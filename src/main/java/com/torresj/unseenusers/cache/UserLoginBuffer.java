@@ -0,0 +1,181 @@
+package com.torresj.unseenusers.cache;
+
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.repositories.mutations.UserLoginBatchMutationRepository.UserLogins;
+import com.torresj.unseenusers.repositories.mutations.UserLoginMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserLoginMutationRepository.LoginUserView;
+import com.torresj.unseenusers.routing.ReadRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * Write-behind buffer for logins. Logins are aggregated in memory per user and written to the
+ * mutation datasource periodically, so a login peak costs one batched UPDATE per user and flush
+ * instead of one read and save per login.
+ *
+ * <p>Users are read as their stored version plus the logins not flushed yet. A flush changes both
+ * when it commits, so readers that overlap a commit read the user again once the flush has
+ * discounted its logins, instead of counting them twice or not at all.
+ */
+@Component
+@Slf4j
+public class UserLoginBuffer {
+
+  private final Map<Long, PendingLogins> pendingLogins = new ConcurrentHashMap<>();
+  private final StampedLock commitLock = new StampedLock();
+  private final UserLoginMutationRepository userLoginMutationRepository;
+  private final UserCache userCache;
+  private final ReadRouter readRouter;
+  private final PlatformTransactionManager transactionManager;
+  private final Counter flushedLogins;
+
+  public UserLoginBuffer(
+      UserLoginMutationRepository userLoginMutationRepository,
+      UserCache userCache,
+      ReadRouter readRouter,
+      @Qualifier("mutationsTransactionManager") PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this.userLoginMutationRepository = userLoginMutationRepository;
+    this.userCache = userCache;
+    this.readRouter = readRouter;
+    this.transactionManager = transactionManager;
+    this.flushedLogins = meterRegistry.counter("users.logins.flushed");
+    meterRegistry.gaugeMapSize("users.logins.pending", List.of(), pendingLogins);
+  }
+
+  public void record(long id, LocalDateTime lastConnection) {
+    pendingLogins.merge(id, new PendingLogins(1, lastConnection), PendingLogins::add);
+  }
+
+  /** Returns a copy of the user including logins not flushed yet. */
+  public UserDto merge(UserDto user) {
+    PendingLogins pending = pendingLogins.get(user.getId());
+    if (pending == null) return user;
+    return user.toBuilder()
+        .numLogins(user.getNumLogins() + pending.logins())
+        .lastConnection(pending.latest(user.getLastConnection()))
+        .build();
+  }
+
+  /**
+   * Runs a read of users that merges their pending logins. It runs again, holding off flushes, when
+   * a flush committed meanwhile: the read could have merged the logins it wrote to the users.
+   */
+  public <T, E extends Exception> T read(SingleFlight.Loader<T, E> read) throws E {
+    long stamp = commitLock.tryOptimisticRead();
+    T result = read.load();
+    if (commitLock.validate(stamp)) return result;
+
+    stamp = commitLock.readLock();
+    try {
+      return read.load();
+    } finally {
+      commitLock.unlockRead(stamp);
+    }
+  }
+
+  @Scheduled(
+      fixedDelayString = "${logins.flush-interval:5000}",
+      initialDelayString = "${logins.flush-interval:5000}")
+  public void scheduledFlush() {
+    flush();
+  }
+
+  @PreDestroy
+  public void shutdownFlush() {
+    log.info("[USER LOGINS] Flushing " + pendingLogins.size() + " users before shutdown");
+    flush();
+  }
+
+  /**
+   * Writes every pending login in a single mutation transaction. Pending values are only
+   * discounted once the transaction is committed, so a failed flush is retried on the next one.
+   */
+  public synchronized int flush() {
+    if (pendingLogins.isEmpty()) return 0;
+    Map<Long, PendingLogins> snapshot = new HashMap<>(pendingLogins);
+    log.debug("[USER LOGINS] Flushing logins of " + snapshot.size() + " users");
+
+    LocalDateTime now = LocalDateTime.now();
+    TransactionStatus status =
+        transactionManager.getTransaction(TransactionDefinition.withDefaults());
+    List<LoginUserView> flushedUsers;
+    try {
+      userLoginMutationRepository.addLogins(
+          snapshot.entrySet().stream()
+              .map(
+                  entry ->
+                      new UserLogins(
+                          entry.getKey(),
+                          entry.getValue().logins(),
+                          entry.getValue().lastConnection()))
+              .toList(),
+          now);
+      flushedUsers = userLoginMutationRepository.findByIdIn(snapshot.keySet());
+    } catch (RuntimeException e) {
+      transactionManager.rollback(status);
+      log.warn("[USER LOGINS] Flush failed, logins will be retried: " + e.getMessage());
+      return 0;
+    }
+
+    // Reads wait until the flush is routed, evicted and discounted, or run again
+    long stamp = commitLock.writeLock();
+    try {
+      try {
+        transactionManager.commit(status);
+      } catch (RuntimeException e) {
+        log.warn("[USER LOGINS] Flush failed, logins will be retried: " + e.getMessage());
+        return 0;
+      }
+
+      // Routed before discounting, replica reads would miss the flushed logins otherwise
+      flushedUsers.forEach(user -> readRouter.recordWrite(user.getId(), user.getEmail(), now));
+      snapshot.forEach(
+          (id, flushed) -> {
+            pendingLogins.computeIfPresent(
+                id,
+                (key, pending) -> {
+                  userCache.evict(id);
+                  return pending.subtract(flushed);
+                });
+            flushedLogins.increment(flushed.logins());
+          });
+    } finally {
+      commitLock.unlockWrite(stamp);
+    }
+
+    log.debug("[USER LOGINS] Logins flushed for " + snapshot.size() + " users");
+    return snapshot.size();
+  }
+
+  private record PendingLogins(long logins, LocalDateTime lastConnection) {
+
+    private PendingLogins add(PendingLogins other) {
+      return new PendingLogins(logins + other.logins, latest(other.lastConnection));
+    }
+
+    /** Returns null once every login has been flushed, so the entry is removed. */
+    private PendingLogins subtract(PendingLogins flushed) {
+      long remaining = logins - flushed.logins;
+      return remaining > 0 ? new PendingLogins(remaining, lastConnection) : null;
+    }
+
+    private LocalDateTime latest(LocalDateTime other) {
+      return other == null || other.isBefore(lastConnection) ? lastConnection : other;
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.torresj.unseenusers.config;
 
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -9,6 +11,20 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @EnableJpaRepositories(
     basePackages = {
       "com.torresj.unseen.repositories.mutations",
-      "com.torresj.unseen.repositories.queries"
+      "com.torresj.unseen.repositories.queries",
+      "com.torresj.unseenusers.repositories.mutations",
+      "com.torresj.unseenusers.repositories.queries"
     })
-public class H2JpaConfig {}
+public class H2JpaConfig {
+
+  // Single datasource, so query and mutation beans are aliases of the default ones
+  @Bean
+  public static BeanFactoryPostProcessor jpaAliases() {
+    return beanFactory -> {
+      beanFactory.registerAlias("entityManagerFactory", "queriesEntityManagerFactory");
+      beanFactory.registerAlias("entityManagerFactory", "mutationsEntityManagerFactory");
+      beanFactory.registerAlias("transactionManager", "queriesTransactionManager");
+      beanFactory.registerAlias("transactionManager", "mutationsTransactionManager");
+    };
+  }
+}
@@ -0,0 +1,37 @@
+package com.torresj.unseenusers.config;
+
+import com.torresj.unseenusers.metrics.RepositoryCallsListener;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+@Configuration
+public class MetricsConfig {
+
+  // Enables @Timed on services
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+    return new TimedAspect(meterRegistry);
+  }
+
+  // Hooks the listener into every Spring Data repository, query and mutation ones
+  @Bean
+  public static BeanPostProcessor repositoryCallsBeanPostProcessor(
+      ObjectProvider<RepositoryCallsListener> repositoryCallsListener) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+          repositoryFactoryBean.addRepositoryFactoryCustomizer(
+              repositoryFactory ->
+                  repositoryFactory.addInvocationListener(repositoryCallsListener.getObject()));
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -1,5 +1,6 @@
 package com.torresj.unseenusers.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -7,8 +8,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 
-import javax.sql.DataSource;
-
 @Configuration
 @Profile("!test && !local")
 public class MutationDatasourceConfig {
@@ -22,7 +21,11 @@ public class MutationDatasourceConfig {
 
   @Bean
   @Primary
-  public DataSource mutationsDataSource() {
-    return mutationsDataSourceProperties().initializeDataSourceBuilder().build();
+  @ConfigurationProperties("spring.datasource.mutations.hikari")
+  public HikariDataSource mutationsDataSource() {
+    return mutationsDataSourceProperties()
+        .initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
   }
 }
@@ -22,7 +22,10 @@ import java.util.Objects;
 @Profile("!test && !local")
 @EnableTransactionManagement
 @EnableJpaRepositories(
-    basePackages = "com.torresj.unseen.repositories.mutations",
+    basePackages = {
+      "com.torresj.unseen.repositories.mutations",
+      "com.torresj.unseenusers.repositories.mutations"
+    },
     entityManagerFactoryRef = "mutationsEntityManagerFactory",
     transactionManagerRef = "mutationsTransactionManager")
 public class MutationJpaConfig {
@@ -33,7 +36,7 @@ public class MutationJpaConfig {
       EntityManagerFactoryBuilder builder) {
     return builder
         .dataSource(dataSource)
-        .packages("com.torresj.unseen.entities")
+        .packages("com.torresj.unseen.entities", "com.torresj.unseenusers.entities")
         .properties(jpaProperties())
         .build();
   }
@@ -50,6 +53,9 @@ public class MutationJpaConfig {
   protected Map<String, ?> jpaProperties() {
     return Map.of(
         "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
-        "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+        "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName(),
+        "hibernate.jdbc.batch_size", 50,
+        "hibernate.order_inserts", true,
+        "hibernate.order_updates", true);
   }
 }
@@ -1,13 +1,12 @@
 package com.torresj.unseenusers.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
-import javax.sql.DataSource;
-
 @Configuration
 @Profile("!test && !local")
 public class QueryDatasourceConfig {
@@ -19,7 +18,11 @@ public class QueryDatasourceConfig {
   }
 
   @Bean
-  public DataSource queriesDataSource() {
-    return queriesDataSourceProperties().initializeDataSourceBuilder().build();
+  @ConfigurationProperties("spring.datasource.queries.hikari")
+  public HikariDataSource queriesDataSource() {
+    return queriesDataSourceProperties()
+        .initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
   }
 }
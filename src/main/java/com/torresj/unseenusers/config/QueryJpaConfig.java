@@ -21,7 +21,10 @@ import java.util.Objects;
 @Profile("!test && !local")
 @EnableTransactionManagement
 @EnableJpaRepositories(
-    basePackages = "com.torresj.unseen.repositories.queries",
+    basePackages = {
+      "com.torresj.unseen.repositories.queries",
+      "com.torresj.unseenusers.repositories.queries"
+    },
     entityManagerFactoryRef = "queriesEntityManagerFactory",
     transactionManagerRef = "queriesTransactionManager")
 public class QueryJpaConfig {
@@ -0,0 +1,28 @@
+package com.torresj.unseenusers.config;
+
+import com.torresj.unseenusers.cache.SingleFlight;
+import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.services.UserService.UsersQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SingleFlightConfig {
+
+  @Bean
+  public SingleFlight<Long, UserDto> usersByIdFlight(MeterRegistry meterRegistry) {
+    return new SingleFlight<>("users-by-id", meterRegistry);
+  }
+
+  @Bean
+  public SingleFlight<String, UserDto> usersByEmailFlight(MeterRegistry meterRegistry) {
+    return new SingleFlight<>("users-by-email", meterRegistry);
+  }
+
+  @Bean
+  public SingleFlight<UsersQuery, PageUserDto> usersPageFlight(MeterRegistry meterRegistry) {
+    return new SingleFlight<>("users-page", meterRegistry);
+  }
+}
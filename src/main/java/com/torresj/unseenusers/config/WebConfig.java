@@ -1,14 +1,24 @@
 package com.torresj.unseenusers.config;
 
+import com.torresj.unseenusers.interceptors.ConsistencyTokenInterceptor;
 import com.torresj.unseenusers.interceptors.LoggerInterceptor;
+import com.torresj.unseenusers.interceptors.RepositoryCallsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
+
+  private final MeterRegistry meterRegistry;
+
   @Override
   public void addInterceptors(InterceptorRegistry registry) {
     registry.addInterceptor(new LoggerInterceptor());
+    registry.addInterceptor(new RepositoryCallsInterceptor(meterRegistry));
+    registry.addInterceptor(new ConsistencyTokenInterceptor());
   }
 }
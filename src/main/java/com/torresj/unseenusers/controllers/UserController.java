@@ -1,34 +1,80 @@
 package com.torresj.unseenusers.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.torresj.unseen.entities.Role;
+import com.torresj.unseenusers.cache.UserJsonCache;
+import com.torresj.unseenusers.dtos.CursorPageUserDto;
+import com.torresj.unseenusers.dtos.EmailAvailabilityDto;
 import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.TotalAccuracy;
+import com.torresj.unseenusers.dtos.UserBatchDto;
+import com.torresj.unseenusers.dtos.UserChangesDto;
+import com.torresj.unseenusers.dtos.UserBatchRequestDto;
 import com.torresj.unseenusers.dtos.UpdateUserDto;
+import com.torresj.unseenusers.dtos.UserDeletionDto;
+import com.torresj.unseenusers.dtos.UserDeletionJobDto;
 import com.torresj.unseenusers.dtos.UserDto;
 import com.torresj.unseenusers.dtos.UserRegisterDto;
+import com.torresj.unseenusers.dtos.UserRegisterResultDto;
+import com.torresj.unseenusers.exceptions.InvalidCursorException;
+import com.torresj.unseenusers.exceptions.PasswordHashingRejectedException;
 import com.torresj.unseenusers.exceptions.UserAlreadyExistsException;
+import com.torresj.unseenusers.exceptions.UserDeletionJobNotFoundException;
 import com.torresj.unseenusers.exceptions.UserNotFoundException;
+import com.torresj.unseenusers.mappers.ETagMapper;
+import com.torresj.unseenusers.services.UserChangeService;
+import com.torresj.unseenusers.services.UserExportService;
 import com.torresj.unseenusers.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+
 @RestController
 @RequestMapping("/v1/users")
 @Slf4j
 @RequiredArgsConstructor
 public class UserController {
 
+  private static final int MAX_BATCH_SIZE = 100;
+  private static final int MAX_REGISTER_BATCH_SIZE = 1000;
+  private static final List<MediaType> REPRESENTATIONS =
+      List.of(
+          MediaType.APPLICATION_JSON,
+          new MediaType("application", "x-jackson-smile"),
+          MediaType.APPLICATION_CBOR);
+
   private final UserService userService;
+  private final UserExportService userExportService;
+  private final UserChangeService userChangeService;
+  private final ObjectMapper objectMapper;
+  private final ETagMapper eTagMapper;
+  private final UserJsonCache userJsonCache;
+  private final ContentNegotiationManager contentNegotiationManager;
 
   @Operation(summary = "Get users")
   @ApiResponses(
@@ -48,7 +94,13 @@ public class UserController {
       @Parameter(description = "Number of elements per page") @RequestParam int elements,
       @Parameter(description = "Filter to find by email") @RequestParam(required = false)
           String filter,
-      @Parameter(description = "Role") @RequestParam(required = false) Role role) {
+      @Parameter(description = "Role") @RequestParam(required = false) Role role,
+      @Parameter(description = "Count the users of every page, -1 totals are returned if false")
+          @RequestParam(defaultValue = "true")
+          boolean includeTotal,
+      @Parameter(description = "Estimate totals from cached counts instead of counting in DB")
+          @RequestParam(defaultValue = "false")
+          boolean estimateTotal) {
 
     log.info(
         "[USERS] Getting users for page "
@@ -61,10 +113,149 @@ public class UserController {
             + role);
 
     int elementsPerPage = elements > 20 || elements < 1 ? 20 : elements;
+    TotalAccuracy totalAccuracy =
+        !includeTotal
+            ? TotalAccuracy.OMITTED
+            : estimateTotal ? TotalAccuracy.ESTIMATED : TotalAccuracy.EXACT;
 
-    var result = userService.users(page, elementsPerPage, filter, role);
+    var result = userService.users(page, elementsPerPage, filter, role, totalAccuracy);
 
-    return ResponseEntity.ok(result);
+    return withValidators(
+        result, result.getContent(), result.getPageInfo().getTotalElements());
+  }
+
+  @Operation(summary = "Search users by email or name, best matches first")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Success",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = PageUserDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Empty query",
+            content = {@Content(mediaType = "application/json")})
+      })
+  @GetMapping("/search")
+  public ResponseEntity<PageUserDto> search(
+      @Parameter(description = "Text contained in email or name") @RequestParam String query,
+      @Parameter(description = "Number of page") @RequestParam int page,
+      @Parameter(description = "Number of elements per page") @RequestParam int elements,
+      @Parameter(description = "Role") @RequestParam(required = false) Role role) {
+
+    log.info(
+        "[USERS] Searching users by "
+            + query
+            + " page "
+            + page
+            + " elements "
+            + elements
+            + " role "
+            + role);
+
+    if (query.isBlank())
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query is empty");
+
+    int elementsPerPage = elements > 20 || elements < 1 ? 20 : elements;
+
+    var result = userService.search(query, page, elementsPerPage, role);
+
+    return withValidators(
+        result, result.getContent(), result.getPageInfo().getTotalElements());
+  }
+
+  @Operation(summary = "Get users by cursor")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Success",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = CursorPageUserDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor",
+            content = {@Content(mediaType = "application/json")})
+      })
+  @GetMapping("/cursor")
+  public ResponseEntity<CursorPageUserDto> usersByCursor(
+      @Parameter(description = "Cursor of the previous page") @RequestParam(required = false)
+          String cursor,
+      @Parameter(description = "Number of elements per page") @RequestParam int elements,
+      @Parameter(description = "Filter to find by email") @RequestParam(required = false)
+          String filter,
+      @Parameter(description = "Role") @RequestParam(required = false) Role role) {
+    try {
+      log.info(
+          "[USERS] Getting users after cursor "
+              + cursor
+              + " elements "
+              + elements
+              + " filter "
+              + filter
+              + " role "
+              + role);
+
+      int elementsPerPage = elements > 20 || elements < 1 ? 20 : elements;
+
+      var result = userService.usersByCursor(cursor, elementsPerPage, filter, role);
+
+      return withValidators(result, result.getContent(), -1);
+    } catch (InvalidCursorException exception) {
+      log.error(exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
+    }
+  }
+
+  @Operation(summary = "Export users as newline-delimited JSON")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Success",
+            content = {
+              @Content(
+                  mediaType = "application/x-ndjson",
+                  schema = @Schema(implementation = UserDto.class))
+            })
+      })
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> export(
+      @Parameter(description = "Filter to find by email") @RequestParam(required = false)
+          String filter,
+      @Parameter(description = "Role") @RequestParam(required = false) Role role) {
+
+    log.info("[USERS] Exporting users filter " + filter + " role " + role);
+
+    ObjectWriter writer = objectMapper.writerFor(UserDto.class);
+
+    StreamingResponseBody body =
+        outputStream -> {
+          long exported =
+              userExportService.export(
+                  filter,
+                  role,
+                  user -> {
+                    try {
+                      outputStream.write(writer.writeValueAsBytes(user));
+                      outputStream.write('\n');
+                    } catch (IOException exception) {
+                      throw new UncheckedIOException(exception);
+                    }
+                  });
+          outputStream.flush();
+
+          log.info("[USERS] " + exported + " users exported");
+        };
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
   }
 
   @Operation(summary = "Get user by id")
@@ -78,20 +269,64 @@ public class UserController {
                   mediaType = "application/json",
                   schema = @Schema(implementation = UserDto.class))
             }),
+        @ApiResponse(
+            responseCode = "304",
+            description = "User not modified since the version in If-None-Match",
+            content = {@Content()}),
         @ApiResponse(
             responseCode = "404",
             description = "User not found",
             content = {@Content(mediaType = "application/json")})
       })
   @GetMapping("/{id}")
-  public ResponseEntity<UserDto> user(@Parameter(description = "User id") @PathVariable long id) {
+  public ResponseEntity<?> user(
+      @Parameter(description = "User id") @PathVariable long id, NativeWebRequest webRequest) {
     try {
       log.info("[USERS] Getting user id " + id);
 
+      // Conditional request, checked against the user version without loading it
+      if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+          && notModified(userService.userETag(id), webRequest)) {
+        log.info("[USERS] User " + id + " not modified");
+        return null;
+      }
+
       UserDto user = userService.user(id);
 
       log.info("[USERS] User " + id + " found");
 
+      return userBody(user, webRequest);
+    } catch (UserNotFoundException exception) {
+      log.error(exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, exception.getMessage());
+    }
+  }
+
+  @Operation(summary = "Record a login of user")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Success",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = UserDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "404",
+            description = "User not found",
+            content = {@Content(mediaType = "application/json")})
+      })
+  @PostMapping("/{id}/login")
+  public ResponseEntity<UserDto> login(@Parameter(description = "User id") @PathVariable long id) {
+    try {
+      log.info("[USERS] Recording login of user id " + id);
+
+      UserDto user = userService.login(id);
+
+      log.info("[USERS] Login of user " + id + " recorded");
+
       return ResponseEntity.ok(user);
     } catch (UserNotFoundException exception) {
       log.error(exception.getMessage());
@@ -110,28 +345,119 @@ public class UserController {
                   mediaType = "application/json",
                   schema = @Schema(implementation = UserDto.class))
             }),
+        @ApiResponse(
+            responseCode = "304",
+            description = "User not modified since the version in If-None-Match",
+            content = {@Content()}),
         @ApiResponse(
             responseCode = "404",
             description = "User not found",
             content = {@Content(mediaType = "application/json")})
       })
   @GetMapping("/me")
-  public ResponseEntity<UserDto> me(
-      @Parameter(description = "User email") @RequestParam String email) {
+  public ResponseEntity<?> me(
+      @Parameter(description = "User email") @RequestParam String email,
+      NativeWebRequest webRequest) {
     try {
       log.info("[USERS] Getting user by email " + email);
 
+      // Conditional request, checked against the user version without loading it
+      if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+          && notModified(userService.userETag(email), webRequest)) {
+        log.info("[USERS] User " + email + " not modified");
+        return null;
+      }
+
       UserDto user = userService.user(email);
 
       log.info("[USERS] User " + email + " found");
 
-      return ResponseEntity.ok(user);
+      return userBody(user, webRequest);
     } catch (UserNotFoundException exception) {
       log.error(exception.getMessage());
       throw new ResponseStatusException(HttpStatus.NOT_FOUND, exception.getMessage());
     }
   }
 
+  @Operation(summary = "Get users by ids and emails")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Success",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = UserBatchDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Too many users requested",
+            content = {@Content(mediaType = "application/json")})
+      })
+  @PostMapping("/batch")
+  public ResponseEntity<UserBatchDto> batch(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              description = "Ids and emails of the users to find",
+              required = true,
+              content = @Content(schema = @Schema(implementation = UserBatchRequestDto.class)))
+          @RequestBody
+          UserBatchRequestDto userBatchRequest) {
+    List<Long> ids = userBatchRequest.ids() == null ? List.of() : userBatchRequest.ids();
+    List<String> emails = userBatchRequest.emails() == null ? List.of() : userBatchRequest.emails();
+
+    log.info("[USERS] Getting users " + ids + " and " + emails);
+
+    if (ids.size() + emails.size() > MAX_BATCH_SIZE) {
+      log.error("[USERS] Batch of " + (ids.size() + emails.size()) + " users is too large");
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "A batch can not contain more than " + MAX_BATCH_SIZE + " users");
+    }
+
+    var result = userService.users(ids, emails);
+
+    log.info("[USERS] " + result.getUsers().size() + " users found");
+
+    return ResponseEntity.ok(result);
+  }
+
+  @Operation(
+      summary = "Check if an email is available to register, HEAD is supported as well",
+      description =
+          "Best effort, emails registered by other instances may be reported available until"
+              + " the email filter is rebuilt. Registering them is still rejected.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Email available",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = EmailAvailabilityDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Email already registered",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = EmailAvailabilityDto.class))
+            })
+      })
+  @GetMapping("/availability")
+  public ResponseEntity<EmailAvailabilityDto> availability(
+      @Parameter(description = "Email to check") @RequestParam String email) {
+    log.info("[USERS] Checking availability of email " + email);
+
+    boolean available = userService.isEmailAvailable(email);
+
+    log.info("[USERS] Email " + email + " available: " + available);
+
+    return ResponseEntity.status(available ? HttpStatus.OK : HttpStatus.CONFLICT)
+        .body(EmailAvailabilityDto.builder().email(email).available(available).build());
+  }
+
   @Operation(summary = "Register Unseen user")
   @ApiResponses(
       value = {
@@ -142,6 +468,10 @@ public class UserController {
         @ApiResponse(
             responseCode = "400",
             description = "User already exists",
+            content = {@Content()}),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many passwords being hashed",
             content = {@Content()})
       })
   @PostMapping("/register")
@@ -168,6 +498,62 @@ public class UserController {
     } catch (UserAlreadyExistsException exception) {
       log.error(exception.getMessage());
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
+    } catch (PasswordHashingRejectedException exception) {
+      log.error(exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, exception.getMessage());
+    }
+  }
+
+  @Operation(summary = "Register Unseen users in bulk")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Result of each registration",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  array =
+                      @ArraySchema(schema = @Schema(implementation = UserRegisterResultDto.class)))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Too many users to register",
+            content = {@Content()}),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many passwords being hashed",
+            content = {@Content()})
+      })
+  @PostMapping("/register/batch")
+  public ResponseEntity<List<UserRegisterResultDto>> registerBatch(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              description = "Register users data",
+              required = true,
+              content =
+                  @Content(
+                      array =
+                          @ArraySchema(schema = @Schema(implementation = UserRegisterDto.class))))
+          @RequestBody
+          List<UserRegisterDto> usersRegister) {
+    log.info("[USERS] Creating " + usersRegister.size() + " users");
+
+    if (usersRegister.size() > MAX_REGISTER_BATCH_SIZE) {
+      log.error("[USERS] Batch of " + usersRegister.size() + " users is too large");
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST,
+          "A batch can not contain more than " + MAX_REGISTER_BATCH_SIZE + " users");
+    }
+
+    try {
+      var results = userService.register(usersRegister);
+
+      log.info("[USERS] Users created: " + results);
+
+      return ResponseEntity.ok(results);
+    } catch (PasswordHashingRejectedException exception) {
+      log.error(exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, exception.getMessage());
     }
   }
 
@@ -181,6 +567,10 @@ public class UserController {
         @ApiResponse(
             responseCode = "404",
             description = "User not found",
+            content = {@Content()}),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many passwords being hashed",
             content = {@Content()})
       })
   @PatchMapping("/{id}")
@@ -203,6 +593,9 @@ public class UserController {
     } catch (UserNotFoundException exception) {
       log.error(exception.getMessage());
       throw new ResponseStatusException(HttpStatus.NOT_FOUND, exception.getMessage());
+    } catch (PasswordHashingRejectedException exception) {
+      log.error(exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, exception.getMessage());
     }
   }
 
@@ -212,25 +605,209 @@ public class UserController {
         @ApiResponse(
             responseCode = "200",
             description = "User deleted",
-            content = {@Content()}),
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = UserDeletionDto.class))
+            }),
         @ApiResponse(
             responseCode = "404",
             description = "User not found",
             content = {@Content()})
       })
   @DeleteMapping("/{id}")
-  public ResponseEntity delete(@Parameter(description = "User id") @PathVariable long id) {
+  public ResponseEntity<UserDeletionDto> delete(
+      @Parameter(description = "User id") @PathVariable long id) {
     try {
       log.info("[USERS] Deleting user " + id);
 
-      userService.delete(id);
+      UserDeletionDto userDeletion = userService.delete(id);
 
-      log.info("[USERS] User " + id + " deleted");
+      log.info("[USERS] User " + id + " deleted: " + userDeletion);
 
-      return ResponseEntity.ok().build();
+      return ResponseEntity.ok(userDeletion);
+    } catch (UserNotFoundException exception) {
+      log.error(exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, exception.getMessage());
+    }
+  }
+
+  @Operation(summary = "Delete user in background")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "202",
+            description = "User deleted, its groups and pairs are processed in background",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = UserDeletionJobDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "404",
+            description = "User not found",
+            content = {@Content()})
+      })
+  @DeleteMapping(value = "/{id}", params = "async=true")
+  public ResponseEntity<UserDeletionJobDto> deleteAsync(
+      @Parameter(description = "User id") @PathVariable long id,
+      @Parameter(description = "Run the cascade in background") @RequestParam boolean async) {
+    try {
+      log.info("[USERS] Deleting user " + id + " in background");
+
+      UserDeletionJobDto job = userService.deleteAsync(id);
+
+      log.info("[USERS] User " + id + " deleted, deletion job " + job.getId() + " created");
+
+      return ResponseEntity.accepted()
+          .location(
+              ServletUriComponentsBuilder.fromCurrentContextPath()
+                  .path("/v1/users/deletions/{jobId}")
+                  .buildAndExpand(job.getId())
+                  .toUri())
+          .body(job);
     } catch (UserNotFoundException exception) {
       log.error(exception.getMessage());
       throw new ResponseStatusException(HttpStatus.NOT_FOUND, exception.getMessage());
     }
   }
+
+  @Operation(summary = "Get user deletion job")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "User deletion job found",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = UserDeletionJobDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "404",
+            description = "User deletion job not found",
+            content = {@Content()})
+      })
+  @GetMapping("/deletions/{jobId}")
+  public ResponseEntity<UserDeletionJobDto> deletionJob(
+      @Parameter(description = "User deletion job id") @PathVariable long jobId) {
+    try {
+      log.info("[USERS] Getting user deletion job " + jobId);
+
+      UserDeletionJobDto job = userService.deletionJob(jobId);
+
+      log.info("[USERS] User deletion job found: " + job);
+
+      return ResponseEntity.ok(job);
+    } catch (UserDeletionJobNotFoundException exception) {
+      log.error(exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, exception.getMessage());
+    }
+  }
+
+  @Operation(summary = "Get user changes since a sequence")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Changes in sequence order and the sequence to ask from next",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = UserChangesDto.class))
+            })
+      })
+  @GetMapping("/changes")
+  public ResponseEntity<UserChangesDto> changes(
+      @Parameter(description = "Last sequence seen, 0 to start from the oldest change")
+          @RequestParam(defaultValue = "0")
+          long since,
+      @Parameter(description = "Maximum number of changes, up to 1000")
+          @RequestParam(defaultValue = "100")
+          int limit) {
+    log.info("[USERS] Getting " + limit + " user changes since " + since);
+
+    UserChangesDto changes = userChangeService.changes(since, limit);
+
+    log.info("[USERS] " + changes.getChanges().size() + " user changes found");
+
+    return ResponseEntity.ok(changes);
+  }
+
+  @Operation(summary = "Stream user changes as server-sent events")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "One event per change, its id is the change sequence",
+            content = {@Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)})
+      })
+  @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamChanges(
+      @Parameter(description = "Last sequence seen, 0 to start from the oldest change")
+          @RequestParam(defaultValue = "0")
+          long since,
+      @Parameter(description = "Last sequence seen before reconnecting, overrides since")
+          @RequestHeader(value = "Last-Event-ID", required = false)
+          Long lastEventId) {
+    long from = lastEventId == null ? since : lastEventId;
+    log.info("[USERS] Streaming user changes since " + from);
+
+    return userChangeService.stream(from);
+  }
+
+  // Cached JSON bytes are written as they are, skipping Jackson, other formats are negotiated
+  private ResponseEntity<?> userBody(UserDto user, NativeWebRequest webRequest) {
+    varyByAccept(webRequest);
+    MediaType representation = representation(webRequest);
+    if (representation == null) return ResponseEntity.ok().eTag(eTagMapper.toETag(user)).body(user);
+
+    var response =
+        ResponseEntity.ok()
+            .eTag(eTagMapper.toETag(eTagMapper.toETag(user), representation.getSubtype()));
+    if (!representation.equals(MediaType.APPLICATION_JSON))
+      return response.contentType(representation).body(user);
+    return response.contentType(MediaType.APPLICATION_JSON).body(userJsonCache.json(user));
+  }
+
+  private boolean notModified(String eTag, NativeWebRequest webRequest) {
+    varyByAccept(webRequest);
+    MediaType representation = representation(webRequest);
+    if (representation == null) return webRequest.checkNotModified(eTag);
+    return webRequest.checkNotModified(eTagMapper.toETag(eTag, representation.getSubtype()));
+  }
+
+  // Written to the response itself, so 304 and 406 answers vary by Accept too, they have no body
+  private static void varyByAccept(NativeWebRequest webRequest) {
+    HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+    if (response != null && !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT))
+      response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+  }
+
+  /**
+   * Format the user is sent in, the first accepted of JSON, Smile and CBOR, or null when none is
+   * accepted. Requests without Accept header get JSON.
+   */
+  private MediaType representation(NativeWebRequest webRequest) {
+    try {
+      List<MediaType> accepted = contentNegotiationManager.resolveMediaTypes(webRequest);
+      if (accepted.isEmpty()) return MediaType.APPLICATION_JSON;
+      for (MediaType acceptedType : accepted) {
+        for (MediaType representation : REPRESENTATIONS) {
+          if (acceptedType.isCompatibleWith(representation)) return representation;
+        }
+      }
+      return null;
+    } catch (HttpMediaTypeNotAcceptableException exception) {
+      return null;
+    }
+  }
+
+  /** Not modified responses are sent by Spring when the request validators match. */
+  private <T> ResponseEntity<T> withValidators(
+      T body, Collection<UserDto> users, long totalElements) {
+    var response = ResponseEntity.ok().eTag(eTagMapper.toETag(users, totalElements));
+    eTagMapper.lastModified(users).ifPresent(response::lastModified);
+    return response.body(body);
+  }
 }
@@ -0,0 +1,16 @@
+package com.torresj.unseenusers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class CursorPageInfoDto {
+  private int elements;
+  private String nextCursor;
+  private boolean isLastPage;
+}
@@ -0,0 +1,17 @@
+package com.torresj.unseenusers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class CursorPageUserDto {
+  private CursorPageInfoDto pageInfo;
+  private List<UserDto> content;
+}
@@ -0,0 +1,15 @@
+package com.torresj.unseenusers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class EmailAvailabilityDto {
+  private String email;
+  private boolean available;
+}
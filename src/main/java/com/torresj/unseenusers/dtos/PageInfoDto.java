@@ -15,4 +15,6 @@ public class PageInfoDto {
   private int totalPages;
   private long totalElements;
   private boolean isLastPage;
+  // Omitted totals are -1
+  private TotalAccuracy totalAccuracy;
 }
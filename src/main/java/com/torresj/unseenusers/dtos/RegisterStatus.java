@@ -0,0 +1,6 @@
+package com.torresj.unseenusers.dtos;
+
+public enum RegisterStatus {
+  CREATED,
+  ALREADY_EXISTS
+}
@@ -0,0 +1,8 @@
+package com.torresj.unseenusers.dtos;
+
+/** How the totals of a page were computed. */
+public enum TotalAccuracy {
+  EXACT,
+  ESTIMATED,
+  OMITTED
+}
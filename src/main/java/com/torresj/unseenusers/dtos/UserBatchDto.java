@@ -0,0 +1,19 @@
+package com.torresj.unseenusers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserBatchDto {
+  private Map<Long, UserDto> users;
+  private List<Long> notFound;
+  private List<String> emailsNotFound;
+}
@@ -0,0 +1,5 @@
+package com.torresj.unseenusers.dtos;
+
+import java.util.List;
+
+public record UserBatchRequestDto(List<Long> ids, List<String> emails) {}
@@ -0,0 +1,20 @@
+package com.torresj.unseenusers.dtos;
+
+import com.torresj.unseenusers.entities.UserChangeType;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserChangeDto {
+  private long sequence;
+  private UserChangeType type;
+  private long userId;
+  private String email;
+  private LocalDateTime createAt;
+}
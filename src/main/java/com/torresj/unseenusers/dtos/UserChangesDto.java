@@ -0,0 +1,16 @@
+package com.torresj.unseenusers.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserChangesDto {
+  private List<UserChangeDto> changes;
+  private long next;
+}
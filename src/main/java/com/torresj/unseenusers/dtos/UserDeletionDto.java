@@ -0,0 +1,21 @@
+package com.torresj.unseenusers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserDeletionDto {
+  private long id;
+  private int groupRelations;
+  private int giftingPairs;
+  private int giftedPairs;
+  private int groupsReassigned;
+  private int groupsDeleted;
+  private int iterationsDeleted;
+  private int pairsDeleted;
+}
@@ -0,0 +1,28 @@
+package com.torresj.unseenusers.dtos;
+
+import com.torresj.unseenusers.entities.UserDeletionStep;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserDeletionJobDto {
+  private long id;
+  private long userId;
+  private UserDeletionStep step;
+  private boolean completed;
+  private LocalDateTime createAt;
+  private LocalDateTime updateAt;
+  private int groupRelations;
+  private int giftingPairs;
+  private int giftedPairs;
+  private int groupsReassigned;
+  private int groupsDeleted;
+  private int iterationsDeleted;
+  private int pairsDeleted;
+}
@@ -0,0 +1,50 @@
+package com.torresj.unseenusers.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Outbox entry of a user mutation, written in the same transaction as the mutation. The sequence
+ * is assigned by UserChangeOutbox right before the transaction commits, in commit order, and is
+ * what consumers of the change feed resume from. The table is created by {@code
+ * db/mariadb/user_change.sql}.
+ */
+@Entity
+@Table(
+    name = "user_change",
+    indexes = @Index(name = "idx_user_change_create_at", columnList = "createAt"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserChangeEntity implements Persistable<Long> {
+  @Id private Long sequence;
+  @CreationTimestamp private LocalDateTime createAt;
+  private long userId;
+  private String email;
+
+  @Enumerated(EnumType.STRING)
+  private UserChangeType type;
+
+  @Override
+  public Long getId() {
+    return sequence;
+  }
+
+  // Changes are only inserted, so saving one never reads it first
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+}
@@ -0,0 +1,27 @@
+package com.torresj.unseenusers.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last sequence assigned to a user change, a single row. Transactions recording changes increment
+ * it right before committing, so they hold its row lock until they commit and sequences become
+ * visible in order. A rolled back transaction rolls its increment back too, leaving no gap.
+ */
+@Entity
+@Table(name = "user_change_sequence")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserChangeSequenceEntity {
+  public static final int ID = 1;
+
+  @Id private int id;
+  private long lastSequence;
+}
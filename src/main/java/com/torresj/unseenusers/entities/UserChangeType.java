@@ -0,0 +1,7 @@
+package com.torresj.unseenusers.entities;
+
+public enum UserChangeType {
+  REGISTERED,
+  UPDATED,
+  DELETED
+}
@@ -0,0 +1,56 @@
+package com.torresj.unseenusers.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Progress of the cascade of a deleted user. The user row is removed when the job is created, the
+ * job keeps the step it is in and what has been done so far, so it can be resumed after a restart.
+ * The table is created by {@code db/mariadb/user_deletion_job.sql}.
+ */
+@Entity
+@Table(
+    name = "user_deletion_job",
+    indexes = @Index(name = "idx_user_deletion_job_step", columnList = "step"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserDeletionJobEntity {
+  // Auto increment column, so the table needs no sequence of its own
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @CreationTimestamp private LocalDateTime createAt;
+  @UpdateTimestamp private LocalDateTime updateAt;
+  private long userId;
+
+  @Enumerated(EnumType.STRING)
+  private UserDeletionStep step;
+
+  private int groupRelations;
+  private int giftingPairs;
+  private int giftedPairs;
+  private int groupsReassigned;
+  private int groupsDeleted;
+  private int iterationsDeleted;
+  private int pairsDeleted;
+
+  // Two workers running the same job, e.g. from different instances, can not both commit a batch
+  @Version private long version;
+}
@@ -0,0 +1,15 @@
+package com.torresj.unseenusers.entities;
+
+/** Steps of a user deletion cascade, run in this order. */
+public enum UserDeletionStep {
+  GROUP_RELATIONS,
+  GIFTING_PAIRS,
+  GIFTED_PAIRS,
+  GROUPS_REASSIGNED,
+  GROUPS_DELETED,
+  COMPLETED;
+
+  public UserDeletionStep next() {
+    return this == COMPLETED ? COMPLETED : values()[ordinal() + 1];
+  }
+}
@@ -0,0 +1,7 @@
+package com.torresj.unseenusers.exceptions;
+
+public class InvalidCursorException extends Exception {
+  public InvalidCursorException(String cursor) {
+    super("Cursor " + cursor + " is not valid");
+  }
+}
@@ -0,0 +1,7 @@
+package com.torresj.unseenusers.exceptions;
+
+public class PasswordHashingRejectedException extends Exception {
+  public PasswordHashingRejectedException() {
+    super("Too many passwords being hashed, try again later");
+  }
+}
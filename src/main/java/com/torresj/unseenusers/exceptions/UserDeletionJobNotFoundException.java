@@ -0,0 +1,7 @@
+package com.torresj.unseenusers.exceptions;
+
+public class UserDeletionJobNotFoundException extends Exception {
+  public UserDeletionJobNotFoundException(long id) {
+    super("User deletion job " + id + " not found");
+  }
+}
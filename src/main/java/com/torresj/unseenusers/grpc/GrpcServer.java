@@ -0,0 +1,90 @@
+package com.torresj.unseenusers.grpc;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * gRPC server next to Tomcat, on its own port and worker threads, so internal callers and browsers
+ * do not wait for each other. With {@code grpc.in-process-name} set it is only reachable in the
+ * same JVM, which tests use instead of a port.
+ *
+ * <p>Started after the rest of the context and stopped before it, letting calls in flight finish
+ * within the shutdown grace period.
+ */
+@Component
+@Slf4j
+public class GrpcServer implements SmartLifecycle {
+
+  private final Server server;
+  private final ExecutorService executor;
+  private final Duration shutdownGracePeriod;
+  private volatile boolean running;
+
+  public GrpcServer(
+      UserGrpcService userGrpcService,
+      @Value("${grpc.port:9090}") int port,
+      @Value("${grpc.in-process-name:}") String inProcessName,
+      @Value("${grpc.workers:16}") int workers,
+      @Value("${grpc.shutdown-grace-period:10s}") Duration shutdownGracePeriod,
+      MeterRegistry meterRegistry) {
+    this.executor =
+        ExecutorServiceMetrics.monitor(
+            meterRegistry,
+            Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("grpc-")),
+            "grpc");
+    this.shutdownGracePeriod = shutdownGracePeriod;
+
+    ServerBuilder<?> builder =
+        inProcessName.isBlank()
+            ? NettyServerBuilder.forPort(port)
+            : InProcessServerBuilder.forName(inProcessName);
+    this.server = builder.executor(executor).addService(userGrpcService).build();
+  }
+
+  @Override
+  public void start() {
+    try {
+      server.start();
+      running = true;
+      log.info("gRPC server started on " + server.getListenSockets());
+    } catch (IOException e) {
+      throw new UncheckedIOException("gRPC server could not be started", e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    server.shutdown();
+    try {
+      if (!server.awaitTermination(shutdownGracePeriod.toMillis(), TimeUnit.MILLISECONDS))
+        server.shutdownNow();
+    } catch (InterruptedException e) {
+      server.shutdownNow();
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdown();
+      running = false;
+      log.info("gRPC server stopped");
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+}
@@ -0,0 +1,176 @@
+package com.torresj.unseenusers.grpc;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenusers.dtos.CursorPageUserDto;
+import com.torresj.unseenusers.dtos.UserBatchDto;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.exceptions.InvalidCursorException;
+import com.torresj.unseenusers.exceptions.UserNotFoundException;
+import com.torresj.unseenusers.grpc.proto.BatchGetUsersRequest;
+import com.torresj.unseenusers.grpc.proto.BatchGetUsersResponse;
+import com.torresj.unseenusers.grpc.proto.GetUserByEmailRequest;
+import com.torresj.unseenusers.grpc.proto.GetUserRequest;
+import com.torresj.unseenusers.grpc.proto.ListUsersRequest;
+import com.torresj.unseenusers.grpc.proto.User;
+import com.torresj.unseenusers.grpc.proto.UsersGrpc;
+import com.torresj.unseenusers.mappers.UserProtoMapper;
+import com.torresj.unseenusers.services.UserService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.Collections;
+import java.util.Iterator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/** gRPC lookups for the other Unseen services, the same UserService calls as UserController. */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserGrpcService extends UsersGrpc.UsersImplBase {
+
+  private static final int MAX_BATCH_SIZE = 100;
+  private static final int LIST_PAGE_SIZE = 100;
+
+  private final UserService userService;
+  private final UserProtoMapper userProtoMapper;
+
+  @Override
+  public void getUser(GetUserRequest request, StreamObserver<User> responseObserver) {
+    log.info("[USERS GRPC] Getting user id " + request.getId());
+    try {
+      UserDto user = userService.user(request.getId());
+      responseObserver.onNext(userProtoMapper.toUser(user));
+      responseObserver.onCompleted();
+    } catch (UserNotFoundException | RuntimeException exception) {
+      responseObserver.onError(toStatus(exception).asRuntimeException());
+    }
+  }
+
+  @Override
+  public void getUserByEmail(
+      GetUserByEmailRequest request, StreamObserver<User> responseObserver) {
+    log.info("[USERS GRPC] Getting user by email " + request.getEmail());
+    try {
+      UserDto user = userService.user(request.getEmail());
+      responseObserver.onNext(userProtoMapper.toUser(user));
+      responseObserver.onCompleted();
+    } catch (UserNotFoundException | RuntimeException exception) {
+      responseObserver.onError(toStatus(exception).asRuntimeException());
+    }
+  }
+
+  @Override
+  public void batchGetUsers(
+      BatchGetUsersRequest request, StreamObserver<BatchGetUsersResponse> responseObserver) {
+    log.info(
+        "[USERS GRPC] Getting users " + request.getIdsList() + " and " + request.getEmailsList());
+    if (request.getIdsCount() + request.getEmailsCount() > MAX_BATCH_SIZE) {
+      responseObserver.onError(
+          Status.INVALID_ARGUMENT
+              .withDescription("A batch can not contain more than " + MAX_BATCH_SIZE + " users")
+              .asRuntimeException());
+      return;
+    }
+
+    try {
+      UserBatchDto batch = userService.users(request.getIdsList(), request.getEmailsList());
+      responseObserver.onNext(
+          BatchGetUsersResponse.newBuilder()
+              .addAllUsers(
+                  batch.getUsers().values().stream().map(userProtoMapper::toUser).toList())
+              .addAllNotFound(batch.getNotFound())
+              .addAllEmailsNotFound(batch.getEmailsNotFound())
+              .build());
+      responseObserver.onCompleted();
+    } catch (RuntimeException exception) {
+      responseObserver.onError(toStatus(exception).asRuntimeException());
+    }
+  }
+
+  /**
+   * Streams cursor pages of users, reading the next page only when the client has taken the
+   * previous one, so slow clients do not make users pile up in memory.
+   */
+  @Override
+  public void listUsers(ListUsersRequest request, StreamObserver<User> responseObserver) {
+    log.info("[USERS GRPC] Listing users filter " + request.getFilter() + " " + request.getRole());
+    Role role;
+    try {
+      role = userProtoMapper.toRole(request.getRole());
+    } catch (IllegalArgumentException exception) {
+      responseObserver.onError(toStatus(exception).asRuntimeException());
+      return;
+    }
+    String filter = request.getFilter().isEmpty() ? null : request.getFilter();
+
+    ServerCallStreamObserver<User> call = (ServerCallStreamObserver<User>) responseObserver;
+    UsersStream stream = new UsersStream(call, filter, role);
+    call.setOnCancelHandler(stream::cancel);
+    call.setOnReadyHandler(stream::drain);
+  }
+
+  // Handlers of a call never run concurrently
+  private class UsersStream {
+    private final ServerCallStreamObserver<User> call;
+    private final String filter;
+    private final Role role;
+    private Iterator<UserDto> users = Collections.emptyIterator();
+    private String cursor;
+    private boolean lastPage;
+    private boolean done;
+
+    private UsersStream(ServerCallStreamObserver<User> call, String filter, Role role) {
+      this.call = call;
+      this.filter = filter;
+      this.role = role;
+    }
+
+    private void cancel() {
+      log.info("[USERS GRPC] Users listing cancelled");
+      done = true;
+    }
+
+    private void drain() {
+      try {
+        while (!done && call.isReady()) {
+          if (!users.hasNext()) {
+            if (lastPage) {
+              done = true;
+              call.onCompleted();
+              return;
+            }
+            CursorPageUserDto page =
+                userService.usersByCursor(cursor, LIST_PAGE_SIZE, filter, role);
+            users = page.getContent().iterator();
+            cursor = page.getPageInfo().getNextCursor();
+            lastPage = page.getPageInfo().isLastPage();
+            continue;
+          }
+          call.onNext(userProtoMapper.toUser(users.next()));
+        }
+      } catch (InvalidCursorException | RuntimeException exception) {
+        done = true;
+        call.onError(toStatus(exception).asRuntimeException());
+      }
+    }
+  }
+
+  /**
+   * Same mapping as the status codes of UserController, the message is the description. Internal
+   * errors only get a fixed description, their cause is logged and never sent to clients.
+   */
+  private static Status toStatus(Exception exception) {
+    if (exception instanceof UserNotFoundException) {
+      log.error(exception.getMessage());
+      return Status.NOT_FOUND.withDescription(exception.getMessage());
+    } else if (exception instanceof InvalidCursorException
+        || exception instanceof IllegalArgumentException) {
+      log.error(exception.getMessage());
+      return Status.INVALID_ARGUMENT.withDescription(exception.getMessage());
+    }
+    log.error("[USERS GRPC] Call failed: " + exception.getMessage(), exception);
+    return Status.INTERNAL.withDescription("Internal error").withCause(exception);
+  }
+}
@@ -0,0 +1,59 @@
+package com.torresj.unseenusers.interceptors;
+
+import com.torresj.unseenusers.routing.ReadRouter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Writes return a consistency token, the time they were served. Reads sending it back go to the
+ * primary during the read-your-writes window, whichever instance serves them.
+ *
+ * <p>Tokens from the future are not issued by any instance, so they are ignored unless they are
+ * within the clock skew allowed between instances, which are taken as issued now. Otherwise a
+ * caller could pin its reads to the primary for good.
+ */
+public class ConsistencyTokenInterceptor implements AsyncHandlerInterceptor {
+
+  private static final long MAX_CLOCK_SKEW_MILLIS = 1000;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws Exception {
+    ReadRouter.startRequest(parseToken(request.getHeader(ReadRouter.CONSISTENCY_TOKEN_HEADER)));
+
+    String method = request.getMethod();
+    if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+      response.setHeader(
+          ReadRouter.CONSISTENCY_TOKEN_HEADER, String.valueOf(System.currentTimeMillis()));
+    }
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(
+      HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+    ReadRouter.endRequest();
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
+      throws Exception {
+    ReadRouter.endRequest();
+  }
+
+  private static Long parseToken(String token) {
+    if (token == null) return null;
+    long issuedAt;
+    try {
+      issuedAt = Long.parseLong(token);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    if (issuedAt > now + MAX_CLOCK_SKEW_MILLIS) return null;
+    return Math.min(issuedAt, now);
+  }
+}
@@ -0,0 +1,50 @@
+package com.torresj.unseenusers.interceptors;
+
+import com.torresj.unseenusers.metrics.RepositoryCallsListener;
+import com.torresj.unseenusers.metrics.RepositoryCallsListener.Datasource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+@RequiredArgsConstructor
+public class RepositoryCallsInterceptor implements AsyncHandlerInterceptor {
+
+  private final MeterRegistry meterRegistry;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws Exception {
+    RepositoryCallsListener.startRequest();
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(
+      HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+    RepositoryCallsListener.endRequest();
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
+      throws Exception {
+    long[] calls = RepositoryCallsListener.endRequest();
+    if (calls == null) return;
+
+    Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    for (Datasource datasource : Datasource.values()) {
+      DistributionSummary.builder("http.server.requests.repository.calls")
+          .description("Repository invocations made by a single request")
+          .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+          .tag("method", request.getMethod())
+          .tag("datasource", datasource.tag())
+          .publishPercentileHistogram()
+          .register(meterRegistry)
+          .record(calls[datasource.ordinal()]);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package com.torresj.unseenusers.jobs;
+
+import com.torresj.unseenusers.dtos.UserDeletionJobDto;
+import com.torresj.unseenusers.entities.UserDeletionJobEntity;
+import com.torresj.unseenusers.entities.UserDeletionStep;
+import com.torresj.unseenusers.mappers.UserDeletionJobMapper;
+import com.torresj.unseenusers.repositories.mutations.UserDeletionJobMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserDeletionMutationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the cascade of deleted users in background. Every batch touches at most batch-size rows
+ * and commits together with the job progress, so a job interrupted by a restart or a failure is
+ * resumed from its last committed batch. Unfinished jobs are looked up at startup and every
+ * resume-interval milliseconds.
+ */
+@Component
+@Slf4j
+public class UserDeletionJobs {
+
+  private final Set<Long> submitted = ConcurrentHashMap.newKeySet();
+  private final UserDeletionJobMutationRepository userDeletionJobMutationRepository;
+  private final UserDeletionMutationRepository userDeletionMutationRepository;
+  private final UserDeletionJobMapper userDeletionJobMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final ThreadPoolTaskExecutor executor;
+  private final int batchSize;
+  private final MeterRegistry meterRegistry;
+
+  public UserDeletionJobs(
+      UserDeletionJobMutationRepository userDeletionJobMutationRepository,
+      UserDeletionMutationRepository userDeletionMutationRepository,
+      UserDeletionJobMapper userDeletionJobMapper,
+      @Qualifier("mutationsTransactionManager") PlatformTransactionManager transactionManager,
+      @Value("${users.deletion.workers:2}") int workers,
+      @Value("${users.deletion.queue-capacity:1000}") int queueCapacity,
+      @Value("${users.deletion.batch-size:500}") int batchSize,
+      MeterRegistry meterRegistry) {
+    this.userDeletionJobMutationRepository = userDeletionJobMutationRepository;
+    this.userDeletionMutationRepository = userDeletionMutationRepository;
+    this.userDeletionJobMapper = userDeletionJobMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.meterRegistry = meterRegistry;
+
+    // Own pool, so deletions never take threads from request handling or scheduled tasks
+    this.executor = new ThreadPoolTaskExecutor();
+    this.executor.setCorePoolSize(workers);
+    this.executor.setMaxPoolSize(workers);
+    this.executor.setQueueCapacity(queueCapacity);
+    this.executor.setThreadNamePrefix("user-deletion-");
+    this.executor.initialize();
+    meterRegistry.gaugeCollectionSize("users.deletion.jobs.submitted", List.of(), submitted);
+  }
+
+  /** Creates the job of a user whose row was deleted, in the caller transaction. */
+  public UserDeletionJobDto create(long userId) {
+    UserDeletionJobEntity job =
+        userDeletionJobMutationRepository.save(
+            UserDeletionJobEntity.builder()
+                .userId(userId)
+                .step(UserDeletionStep.GROUP_RELATIONS)
+                .build());
+    return userDeletionJobMapper.toUserDeletionJobDto(job);
+  }
+
+  public Optional<UserDeletionJobDto> job(long id) {
+    return userDeletionJobMutationRepository
+        .findById(id)
+        .map(userDeletionJobMapper::toUserDeletionJobDto);
+  }
+
+  /** Runs the job in background, unless this instance already has it queued or running. */
+  public void submit(long id) {
+    if (!submitted.add(id)) return;
+    try {
+      executor.execute(
+          () -> {
+            try {
+              run(id);
+            } finally {
+              submitted.remove(id);
+            }
+          });
+    } catch (TaskRejectedException e) {
+      submitted.remove(id);
+      log.warn("[USER DELETION JOBS] Job " + id + " rejected, it will be resumed later");
+    }
+  }
+
+  @Scheduled(initialDelay = 0, fixedDelayString = "${users.deletion.resume-interval:60000}")
+  public void resume() {
+    try {
+      List<Long> ids =
+          userDeletionJobMutationRepository.findIdsByStepNot(UserDeletionStep.COMPLETED);
+      if (!ids.isEmpty()) log.info("[USER DELETION JOBS] Resuming " + ids.size() + " jobs");
+      ids.forEach(this::submit);
+    } catch (RuntimeException e) {
+      log.warn("[USER DELETION JOBS] Unfinished jobs lookup failed: " + e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    // Unfinished batches are rolled back and run again when jobs are resumed
+    executor.shutdown();
+  }
+
+  void run(long id) {
+    log.debug("[USER DELETION JOBS] Running job " + id);
+    try {
+      boolean pending = true;
+      while (pending) pending = Boolean.TRUE.equals(transactionTemplate.execute(s -> batch(id)));
+      log.info("[USER DELETION JOBS] Job " + id + " completed");
+    } catch (OptimisticLockingFailureException e) {
+      log.info("[USER DELETION JOBS] Job " + id + " is being run by another worker");
+    } catch (RuntimeException e) {
+      log.warn("[USER DELETION JOBS] Job " + id + " failed, it will be resumed: " + e.getMessage());
+    }
+  }
+
+  /** Runs the next batch of the job and returns whether there is work left. */
+  private boolean batch(long id) {
+    UserDeletionJobEntity job = userDeletionJobMutationRepository.findById(id).orElse(null);
+    if (job == null || job.getStep() == UserDeletionStep.COMPLETED) return false;
+
+    long userId = job.getUserId();
+    Pageable next = PageRequest.of(0, batchSize);
+    List<Long> ids;
+    switch (job.getStep()) {
+      case GROUP_RELATIONS -> {
+        ids = userDeletionMutationRepository.findGroupRelationIds(userId, next);
+        if (!ids.isEmpty())
+          job.setGroupRelations(
+              job.getGroupRelations()
+                  + userDeletionMutationRepository.deleteGroupRelationsById(ids));
+      }
+      case GIFTING_PAIRS -> {
+        ids = userDeletionMutationRepository.findGiftingPairIds(userId, next);
+        if (!ids.isEmpty())
+          job.setGiftingPairs(
+              job.getGiftingPairs() + userDeletionMutationRepository.unlinkGiftingPairsById(ids));
+      }
+      case GIFTED_PAIRS -> {
+        ids = userDeletionMutationRepository.findGiftedPairIds(userId, next);
+        if (!ids.isEmpty())
+          job.setGiftedPairs(
+              job.getGiftedPairs() + userDeletionMutationRepository.unlinkGiftedPairsById(ids));
+      }
+      case GROUPS_REASSIGNED -> {
+        ids = userDeletionMutationRepository.findReassignableGroupIds(userId, next);
+        if (!ids.isEmpty())
+          job.setGroupsReassigned(
+              job.getGroupsReassigned() + userDeletionMutationRepository.reassignGroupsById(ids));
+      }
+      default -> {
+        // Groups still owned by the user have no members left
+        ids = userDeletionMutationRepository.findOwnedGroupIds(userId, next);
+        if (!ids.isEmpty()) {
+          job.setPairsDeleted(
+              job.getPairsDeleted() + userDeletionMutationRepository.deleteGroupPairsById(ids));
+          job.setIterationsDeleted(
+              job.getIterationsDeleted()
+                  + userDeletionMutationRepository.deleteGroupIterationsById(ids));
+          job.setGroupsDeleted(
+              job.getGroupsDeleted() + userDeletionMutationRepository.deleteGroupsById(ids));
+        }
+      }
+    }
+    meterRegistry.counter("users.deletion.batches", "step", job.getStep().name()).increment();
+
+    // A short batch was the last one of its step
+    if (ids.size() < batchSize) job.setStep(job.getStep().next());
+    userDeletionJobMutationRepository.save(job);
+    return job.getStep() != UserDeletionStep.COMPLETED;
+  }
+}
@@ -0,0 +1,35 @@
+package com.torresj.unseenusers.mappers;
+
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenusers.exceptions.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CursorMapper {
+
+  private static final String SEPARATOR = "|";
+
+  public String toCursor(UserEntity userEntity) {
+    String key = userEntity.getCreateAt() + SEPARATOR + userEntity.getId();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public UserCursor fromCursor(String cursor) throws InvalidCursorException {
+    try {
+      String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = key.lastIndexOf(SEPARATOR);
+      return new UserCursor(
+          LocalDateTime.parse(key.substring(0, separator)),
+          Long.parseLong(key.substring(separator + 1)));
+    } catch (RuntimeException exception) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+
+  public record UserCursor(LocalDateTime createAt, long id) {}
+}
@@ -0,0 +1,67 @@
+package com.torresj.unseenusers.mappers;
+
+import com.torresj.unseenusers.dtos.UserDto;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validators for conditional requests. Tags are weak because they identify the user version, not
+ * the exact bytes sent. Logins change a user without touching updateAt, so they are part of it.
+ */
+@Component
+public class ETagMapper {
+
+  public String toETag(UserDto user) {
+    return "W/\""
+        + Long.toHexString(user.getId())
+        + "-"
+        + Long.toHexString(nanos(user.getUpdateAt()))
+        + "-"
+        + Long.toHexString(user.getNumLogins())
+        + "-"
+        + Long.toHexString(nanos(user.getLastConnection()))
+        + "\"";
+  }
+
+  /** Tag of one representation of the user, the JSON, Smile and CBOR bodies of it differ. */
+  public String toETag(String userETag, String representation) {
+    return userETag.substring(0, userETag.length() - 1) + "-" + representation + "\"";
+  }
+
+  /** Tag of a list page, any user added, removed or changed in the page changes it. */
+  public String toETag(Collection<UserDto> users, long totalElements) {
+    long version = totalElements;
+    for (UserDto user : users) {
+      version = mix(version, user.getId());
+      version = mix(version, nanos(user.getUpdateAt()));
+      version = mix(version, user.getNumLogins());
+      version = mix(version, nanos(user.getLastConnection()));
+    }
+    return "W/\"" + users.size() + "-" + Long.toHexString(version) + "\"";
+  }
+
+  /** Newest updateAt of the users, empty when there is none. */
+  public Optional<Instant> lastModified(Collection<UserDto> users) {
+    return users.stream()
+        .map(UserDto::getUpdateAt)
+        .filter(Objects::nonNull)
+        .max(LocalDateTime::compareTo)
+        .map(updateAt -> updateAt.atZone(ZoneId.systemDefault()).toInstant());
+  }
+
+  private static long nanos(LocalDateTime dateTime) {
+    if (dateTime == null) return 0;
+    return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+  }
+
+  private static long mix(long hash, long value) {
+    hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+    return hash ^ (hash >>> 32);
+  }
+}
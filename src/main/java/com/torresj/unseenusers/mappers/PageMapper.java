@@ -1,12 +1,21 @@
 package com.torresj.unseenusers.mappers;
 
 import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenusers.dtos.CursorPageInfoDto;
+import com.torresj.unseenusers.dtos.CursorPageUserDto;
 import com.torresj.unseenusers.dtos.PageInfoDto;
 import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.TotalAccuracy;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.repositories.queries.UserView;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
@@ -14,7 +23,7 @@ import java.util.stream.Collectors;
 public class PageMapper {
   private final UserMapper userMapper;
 
-  public PageUserDto toPageUser(Page<UserEntity> page) {
+  public PageUserDto toPageUser(Page<UserView> page) {
     return PageUserDto.builder()
         .content(page.getContent().stream().map(userMapper::toUserDto).collect(Collectors.toList()))
         .pageInfo(
@@ -24,6 +33,62 @@ public class PageMapper {
                 .totalElements(page.getTotalElements())
                 .totalPages(page.getTotalPages())
                 .isLastPage(page.isLast())
+                .totalAccuracy(TotalAccuracy.EXACT)
+                .build())
+        .build();
+  }
+
+  public PageUserDto toPageUser(List<UserDto> content, Pageable pageable, long total) {
+    var page = new PageImpl<>(content, pageable, total);
+    return PageUserDto.builder()
+        .content(content)
+        .pageInfo(
+            PageInfoDto.builder()
+                .page(page.getPageable().getPageNumber())
+                .elements(page.getPageable().getPageSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .isLastPage(page.isLast())
+                .totalAccuracy(TotalAccuracy.EXACT)
+                .build())
+        .build();
+  }
+
+  /** Page without exact totals, they are omitted when the estimate is null. */
+  public PageUserDto toPageUser(Slice<UserView> slice, Long estimate) {
+    int elements = slice.getPageable().getPageSize();
+    long total = -1;
+    int totalPages = -1;
+    if (estimate != null) {
+      // The estimate can't be lower than the users already seen
+      long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+      total = Math.max(estimate, slice.hasNext() ? seen + 1 : seen);
+      totalPages = (int) ((total + elements - 1) / elements);
+    }
+    return PageUserDto.builder()
+        .content(
+            slice.getContent().stream().map(userMapper::toUserDto).collect(Collectors.toList()))
+        .pageInfo(
+            PageInfoDto.builder()
+                .page(slice.getPageable().getPageNumber())
+                .elements(elements)
+                .totalElements(total)
+                .totalPages(totalPages)
+                .isLastPage(!slice.hasNext())
+                .totalAccuracy(estimate == null ? TotalAccuracy.OMITTED : TotalAccuracy.ESTIMATED)
+                .build())
+        .build();
+  }
+
+  public CursorPageUserDto toCursorPageUser(Slice<UserEntity> slice, String nextCursor) {
+    return CursorPageUserDto.builder()
+        .content(
+            slice.getContent().stream().map(userMapper::toUserDto).collect(Collectors.toList()))
+        .pageInfo(
+            CursorPageInfoDto.builder()
+                .elements(slice.getPageable().getPageSize())
+                .nextCursor(nextCursor)
+                .isLastPage(!slice.hasNext())
                 .build())
         .build();
   }
@@ -0,0 +1,10 @@
+package com.torresj.unseenusers.mappers;
+
+import com.torresj.unseenusers.dtos.UserChangeDto;
+import com.torresj.unseenusers.entities.UserChangeEntity;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface UserChangeMapper {
+  UserChangeDto toUserChangeDto(UserChangeEntity change);
+}
@@ -0,0 +1,15 @@
+package com.torresj.unseenusers.mappers;
+
+import com.torresj.unseenusers.dtos.UserDeletionJobDto;
+import com.torresj.unseenusers.entities.UserDeletionJobEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface UserDeletionJobMapper {
+  @Mapping(
+      target = "completed",
+      expression =
+          "java(job.getStep() == com.torresj.unseenusers.entities.UserDeletionStep.COMPLETED)")
+  UserDeletionJobDto toUserDeletionJobDto(UserDeletionJobEntity job);
+}
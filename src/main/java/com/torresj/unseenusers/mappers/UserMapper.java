@@ -2,6 +2,7 @@ package com.torresj.unseenusers.mappers;
 
 import com.torresj.unseen.entities.UserEntity;
 import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.repositories.queries.UserView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -11,4 +12,6 @@ public interface UserMapper {
   UserEntity toEntity(UserDto user);
 
   UserDto toUserDto(UserEntity userEntity);
+
+  UserDto toUserDto(UserView userView);
 }
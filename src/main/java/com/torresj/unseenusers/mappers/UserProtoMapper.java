@@ -0,0 +1,53 @@
+package com.torresj.unseenusers.mappers;
+
+import com.google.protobuf.Timestamp;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.grpc.proto.AuthProvider;
+import com.torresj.unseenusers.grpc.proto.Role;
+import com.torresj.unseenusers.grpc.proto.User;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.springframework.stereotype.Component;
+
+/** Users as gRPC messages. Protobuf has no nulls, missing values are left unset. */
+@Component
+public class UserProtoMapper {
+
+  public User toUser(UserDto user) {
+    User.Builder builder =
+        User.newBuilder()
+            .setId(user.getId())
+            .setNumLogins(user.getNumLogins())
+            .setValidated(user.isValidated());
+    if (user.getEmail() != null) builder.setEmail(user.getEmail());
+    if (user.getName() != null) builder.setName(user.getName());
+    if (user.getPhotoUrl() != null) builder.setPhotoUrl(user.getPhotoUrl());
+    if (user.getProvider() != null)
+      builder.setProvider(AuthProvider.valueOf(user.getProvider().name()));
+    if (user.getRole() != null) builder.setRole(Role.valueOf(user.getRole().name()));
+    if (user.getCreateAt() != null) builder.setCreateAt(toTimestamp(user.getCreateAt()));
+    if (user.getUpdateAt() != null) builder.setUpdateAt(toTimestamp(user.getUpdateAt()));
+    if (user.getLastConnection() != null)
+      builder.setLastConnection(toTimestamp(user.getLastConnection()));
+    return builder.build();
+  }
+
+  /** Unspecified role is no role filter. */
+  public com.torresj.unseen.entities.Role toRole(Role role) {
+    return switch (role) {
+      case ROLE_UNSPECIFIED -> null;
+      case UNRECOGNIZED -> throw new IllegalArgumentException("Unknown role");
+      default -> com.torresj.unseen.entities.Role.valueOf(role.name());
+    };
+  }
+
+  // Dates are stored in the zone of the service, as for Last-Modified headers
+  private static Timestamp toTimestamp(LocalDateTime dateTime) {
+    Instant instant = dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    return Timestamp.newBuilder()
+        .setSeconds(instant.getEpochSecond())
+        .setNanos(instant.getNano())
+        .build();
+  }
+}
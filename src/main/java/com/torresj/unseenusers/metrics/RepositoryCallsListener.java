@@ -0,0 +1,60 @@
+package com.torresj.unseenusers.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts every repository invocation by datasource, and also per request for the thread that
+ * started one with {@link #startRequest()}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryCallsListener implements RepositoryMethodInvocationListener {
+
+  private static final ThreadLocal<long[]> REQUEST_CALLS = new ThreadLocal<>();
+
+  private final MeterRegistry meterRegistry;
+
+  public static void startRequest() {
+    REQUEST_CALLS.set(new long[Datasource.values().length]);
+  }
+
+  public static long[] endRequest() {
+    long[] calls = REQUEST_CALLS.get();
+    REQUEST_CALLS.remove();
+    return calls;
+  }
+
+  @Override
+  public void afterInvocation(RepositoryMethodInvocation invocation) {
+    Datasource datasource = Datasource.of(invocation.getRepositoryInterface());
+
+    Counter.builder("repository.invocations")
+        .description("Repository method invocations")
+        .tag("datasource", datasource.tag())
+        .tag("repository", invocation.getRepositoryInterface().getSimpleName())
+        .tag("method", invocation.getMethod().getName())
+        .register(meterRegistry)
+        .increment();
+
+    long[] calls = REQUEST_CALLS.get();
+    if (calls != null) calls[datasource.ordinal()]++;
+  }
+
+  public enum Datasource {
+    QUERY,
+    MUTATION;
+
+    // Repositories are split by package, the same way the JPA configs bind them
+    static Datasource of(Class<?> repositoryInterface) {
+      return repositoryInterface.getPackageName().endsWith(".mutations") ? MUTATION : QUERY;
+    }
+
+    public String tag() {
+      return name().toLowerCase();
+    }
+  }
+}
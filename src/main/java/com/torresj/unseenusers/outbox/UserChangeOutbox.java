@@ -0,0 +1,143 @@
+package com.torresj.unseenusers.outbox;
+
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenusers.entities.UserChangeEntity;
+import com.torresj.unseenusers.entities.UserChangeSequenceEntity;
+import com.torresj.unseenusers.entities.UserChangeType;
+import com.torresj.unseenusers.repositories.mutations.UserChangeMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserChangeSequenceMutationRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes user changes to the outbox table. Changes are committed or rolled back together with the
+ * mutation that caused them, so the change feed never misses or invents a mutation.
+ *
+ * <p>Changes are written right before their transaction commits, when they take their sequences
+ * from the user_change_sequence counter. Its row stays locked until the commit, so sequences are
+ * assigned in commit order without gaps and a reader never sees a change after a greater one.
+ */
+@Component
+@Slf4j
+public class UserChangeOutbox {
+
+  private final UserChangeMutationRepository userChangeMutationRepository;
+  private final UserChangeSequenceMutationRepository userChangeSequenceMutationRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  public UserChangeOutbox(
+      UserChangeMutationRepository userChangeMutationRepository,
+      UserChangeSequenceMutationRepository userChangeSequenceMutationRepository,
+      @Qualifier("mutationsTransactionManager") PlatformTransactionManager transactionManager) {
+    this.userChangeMutationRepository = userChangeMutationRepository;
+    this.userChangeSequenceMutationRepository = userChangeSequenceMutationRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /** Creates the counter when the schema was generated by Hibernate instead of the DDL script. */
+  @PostConstruct
+  public void init() {
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            if (userChangeSequenceMutationRepository.findLastSequence().isEmpty())
+              userChangeSequenceMutationRepository.save(
+                  new UserChangeSequenceEntity(UserChangeSequenceEntity.ID, 0));
+          });
+    } catch (DataIntegrityViolationException e) {
+      log.debug("[USER CHANGE OUTBOX] Change sequence created by another instance");
+    } catch (DataAccessException e) {
+      log.warn(
+          "[USER CHANGE OUTBOX] Change sequence not created, run db/mariadb/user_change.sql: "
+              + e.getMessage());
+    }
+  }
+
+  /**
+   * Runs the write and records its change in one transaction, joining the caller one if any. A
+   * write returning null changed nothing and records no change.
+   */
+  public UserEntity write(UserChangeType type, Supplier<UserEntity> write) {
+    return transactionTemplate.execute(
+        status -> {
+          UserEntity userEntity = write.get();
+          if (userEntity != null) record(type, userEntity);
+          return userEntity;
+        });
+  }
+
+  /** Runs the write of several users and records their changes in one transaction. */
+  public List<UserEntity> writeAll(UserChangeType type, Supplier<List<UserEntity>> write) {
+    return transactionTemplate.execute(
+        status -> {
+          List<UserEntity> userEntities = write.get();
+          userEntities.forEach(userEntity -> record(type, userEntity));
+          return userEntities;
+        });
+  }
+
+  /**
+   * Records the change in the current transaction, which must be the one of the mutation. It is
+   * written when the transaction commits, right away without one.
+   */
+  public void record(UserChangeType type, UserEntity userEntity) {
+    UserChangeEntity change =
+        UserChangeEntity.builder()
+            .userId(userEntity.getId())
+            .email(userEntity.getEmail())
+            .type(type)
+            .build();
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      writeChanges(List.of(change));
+      return;
+    }
+    pendingChanges().changes.add(change);
+  }
+
+  private PendingChanges pendingChanges() {
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      if (synchronization instanceof PendingChanges pending && pending.outbox() == this)
+        return pending;
+    }
+    PendingChanges pending = new PendingChanges();
+    TransactionSynchronizationManager.registerSynchronization(pending);
+    return pending;
+  }
+
+  private void writeChanges(List<UserChangeEntity> changes) {
+    if (userChangeSequenceMutationRepository.increment(changes.size()) == 0)
+      throw new IllegalStateException(
+          "No user_change_sequence row, run db/mariadb/user_change.sql");
+    long sequence =
+        userChangeSequenceMutationRepository.findLastSequence().orElseThrow() - changes.size();
+    for (UserChangeEntity change : changes) change.setSequence(++sequence);
+    userChangeMutationRepository.saveAll(changes);
+  }
+
+  /** Changes recorded in a transaction, bound to it so suspended transactions keep their own. */
+  private class PendingChanges implements TransactionSynchronization {
+    private final List<UserChangeEntity> changes = new ArrayList<>();
+
+    private UserChangeOutbox outbox() {
+      return UserChangeOutbox.this;
+    }
+
+    // The counter is locked as late as possible, so transactions wait on it the shortest time
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      if (!changes.isEmpty()) writeChanges(changes);
+    }
+  }
+}
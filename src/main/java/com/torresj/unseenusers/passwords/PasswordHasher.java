@@ -0,0 +1,149 @@
+package com.torresj.unseenusers.passwords;
+
+import com.torresj.unseenusers.exceptions.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes passwords on a pool sized to the CPUs, so hashing never takes more CPU than the pool has,
+ * whatever the number of request threads waiting for it. When the queue is full new passwords are
+ * rejected right away instead of piling up behind the ones being hashed.
+ *
+ * <p>The noop algorithm stores passwords as they are and runs on the caller thread. It is only
+ * meant for tests and local runs.
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+  private final String algorithm;
+  private final PasswordEncoder passwordEncoder;
+  private final ThreadPoolExecutor executor;
+  private final Timer hashTimer;
+  private final Timer waitTimer;
+  private final Counter rejected;
+
+  public PasswordHasher(
+      @Value("${passwords.algorithm:bcrypt}") String algorithm,
+      @Value("${passwords.bcrypt.strength:10}") int bcryptStrength,
+      @Value("${passwords.argon2.memory:16384}") int argon2Memory,
+      @Value("${passwords.argon2.iterations:2}") int argon2Iterations,
+      @Value("${passwords.workers:0}") int workers,
+      @Value("${passwords.queue-capacity:64}") int queueCapacity,
+      MeterRegistry meterRegistry) {
+    this.algorithm = algorithm;
+    this.passwordEncoder = encoder(algorithm, bcryptStrength, argon2Memory, argon2Iterations);
+
+    int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("password-hasher-"),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    this.hashTimer =
+        Timer.builder("users.passwords.hash")
+            .description("Time spent hashing a password")
+            .tag("algorithm", algorithm)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    this.waitTimer =
+        Timer.builder("users.passwords.wait")
+            .description("Time a password waits in queue before being hashed")
+            .tag("algorithm", algorithm)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    this.rejected = meterRegistry.counter("users.passwords.rejected", "algorithm", algorithm);
+    meterRegistry.gauge("users.passwords.queued", executor, pool -> pool.getQueue().size());
+    meterRegistry.gauge("users.passwords.active", executor, ThreadPoolExecutor::getActiveCount);
+    log.info("Passwords are hashed with " + algorithm + " on " + threads + " threads");
+  }
+
+  public String hash(String password) throws PasswordHashingRejectedException {
+    if (passwordEncoder == null) return password;
+    return hash(Collections.singletonList(password)).get(0);
+  }
+
+  /**
+   * Hashes the passwords in parallel, all of them are rejected if any does not fit in queue.
+   * Missing passwords stay missing.
+   *
+   * <p>A batch has at most one password per thread submitted at a time, the next one is submitted
+   * when the oldest is hashed. Batches of any size take a few queue slots only, and are rejected
+   * when the queue is full, not because they are big.
+   */
+  public List<String> hash(List<String> passwords) throws PasswordHashingRejectedException {
+    if (passwordEncoder == null) return passwords;
+
+    int window = executor.getMaximumPoolSize();
+    List<Future<String>> hashes = new ArrayList<>(passwords.size());
+    try {
+      for (String password : passwords) {
+        if (hashes.size() >= window) hashes.get(hashes.size() - window).get();
+        if (password == null) {
+          hashes.add(CompletableFuture.completedFuture(null));
+          continue;
+        }
+        long queuedAt = System.nanoTime();
+        hashes.add(
+            executor.submit(
+                () -> {
+                  waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                  return hashTimer.record(() -> passwordEncoder.encode(password));
+                }));
+      }
+
+      List<String> hashed = new ArrayList<>(passwords.size());
+      for (Future<String> hash : hashes) hashed.add(hash.get());
+      return hashed;
+    } catch (RejectedExecutionException e) {
+      hashes.forEach(hash -> hash.cancel(false));
+      rejected.increment();
+      throw new PasswordHashingRejectedException();
+    } catch (InterruptedException e) {
+      hashes.forEach(hash -> hash.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted hashing passwords", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Password hashing failed with " + algorithm, e.getCause());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private static PasswordEncoder encoder(
+      String algorithm, int bcryptStrength, int argon2Memory, int argon2Iterations) {
+    return switch (algorithm) {
+      case "noop" -> null;
+      case "bcrypt" -> new BCryptPasswordEncoder(bcryptStrength);
+      case "argon2" -> new Argon2PasswordEncoder(16, 32, 1, argon2Memory, argon2Iterations);
+      default -> throw new IllegalArgumentException("Unknown password algorithm " + algorithm);
+    };
+  }
+}
@@ -0,0 +1,23 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import com.torresj.unseenusers.entities.UserChangeEntity;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+/** Changes are read from the mutation datasource, so the feed does not depend on replica lag. */
+public interface UserChangeMutationRepository extends Repository<UserChangeEntity, Long> {
+
+  List<UserChangeEntity> saveAll(Iterable<UserChangeEntity> changes);
+
+  List<UserChangeEntity> findBySequenceGreaterThanOrderBySequenceAsc(
+      long since, Pageable pageable);
+
+  @Modifying
+  @Query("delete from UserChangeEntity c where c.createAt < :before")
+  int deleteByCreateAtBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,24 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import com.torresj.unseenusers.entities.UserChangeSequenceEntity;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+/** The counter is incremented in place, which locks its row until the transaction ends. */
+public interface UserChangeSequenceMutationRepository
+    extends Repository<UserChangeSequenceEntity, Integer> {
+
+  UserChangeSequenceEntity save(UserChangeSequenceEntity sequence);
+
+  @Modifying
+  @Query(
+      "update UserChangeSequenceEntity s set s.lastSequence = s.lastSequence + :count"
+          + " where s.id = 1")
+  int increment(@Param("count") long count);
+
+  @Query("select s.lastSequence from UserChangeSequenceEntity s where s.id = 1")
+  Optional<Long> findLastSequence();
+}
@@ -0,0 +1,21 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import com.torresj.unseenusers.entities.UserDeletionJobEntity;
+import com.torresj.unseenusers.entities.UserDeletionStep;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+/** Deletion jobs are read and written on the mutation datasource, so status is never stale. */
+public interface UserDeletionJobMutationRepository
+    extends Repository<UserDeletionJobEntity, Long> {
+
+  UserDeletionJobEntity save(UserDeletionJobEntity job);
+
+  Optional<UserDeletionJobEntity> findById(long id);
+
+  @Query("select j.id from UserDeletionJobEntity j where j.step <> :step order by j.id")
+  List<Long> findIdsByStepNot(@Param("step") UserDeletionStep step);
+}
@@ -0,0 +1,121 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import com.torresj.unseen.entities.UserEntity;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Bulk statements used to cascade a user deletion. Every method runs a single UPDATE or DELETE,
+ * so callers must provide the surrounding mutation transaction.
+ *
+ * <p>Background deletions run the cascade in batches instead: ids of the next rows are selected and
+ * then updated or deleted by id. Rows already processed no longer match, so running a batch again
+ * after a failure is harmless.
+ */
+public interface UserDeletionMutationRepository extends Repository<UserEntity, Long> {
+
+  @Modifying
+  @Query("delete from UserEntity u where u.id = :userId")
+  int deleteUser(@Param("userId") long userId);
+
+  @Modifying
+  @Query("delete from UserGroupRelationEntity r where r.userId = :userId")
+  int deleteGroupRelations(@Param("userId") long userId);
+
+  @Modifying
+  @Query("update PairEntity p set p.giftingUserId = -1 where p.giftingUserId = :userId")
+  int unlinkGiftingPairs(@Param("userId") long userId);
+
+  @Modifying
+  @Query("update PairEntity p set p.giftedUserId = -1 where p.giftedUserId = :userId")
+  int unlinkGiftedPairs(@Param("userId") long userId);
+
+  /** Moves ownership of every group owned by the user to its first remaining member. */
+  @Modifying
+  @Query(
+      "update GroupEntity g set g.owner ="
+          + " (select min(r.userId) from UserGroupRelationEntity r where r.groupId = g.id"
+          + "   and exists (select u.id from UserEntity u where u.id = r.userId))"
+          + " where g.owner = :userId"
+          + " and exists (select r.id from UserGroupRelationEntity r where r.groupId = g.id"
+          + "   and exists (select u.id from UserEntity u where u.id = r.userId))")
+  int reassignOwnedGroups(@Param("userId") long userId);
+
+  @Modifying
+  @Query(
+      "delete from PairEntity p where p.iterationId in"
+          + " (select i.id from IterationEntity i where i.groupId in"
+          + "   (select g.id from GroupEntity g where g.owner = :userId))")
+  int deleteOwnedGroupPairs(@Param("userId") long userId);
+
+  @Modifying
+  @Query(
+      "delete from IterationEntity i where i.groupId in"
+          + " (select g.id from GroupEntity g where g.owner = :userId)")
+  int deleteOwnedGroupIterations(@Param("userId") long userId);
+
+  @Modifying
+  @Query("delete from GroupEntity g where g.owner = :userId")
+  int deleteOwnedGroups(@Param("userId") long userId);
+
+  @Query("select r.id from UserGroupRelationEntity r where r.userId = :userId order by r.id")
+  List<Long> findGroupRelationIds(@Param("userId") long userId, Pageable pageable);
+
+  @Modifying
+  @Query("delete from UserGroupRelationEntity r where r.id in :ids")
+  int deleteGroupRelationsById(@Param("ids") Collection<Long> ids);
+
+  @Query("select p.id from PairEntity p where p.giftingUserId = :userId order by p.id")
+  List<Long> findGiftingPairIds(@Param("userId") long userId, Pageable pageable);
+
+  @Query("select p.id from PairEntity p where p.giftedUserId = :userId order by p.id")
+  List<Long> findGiftedPairIds(@Param("userId") long userId, Pageable pageable);
+
+  @Modifying
+  @Query("update PairEntity p set p.giftingUserId = -1 where p.id in :ids")
+  int unlinkGiftingPairsById(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Query("update PairEntity p set p.giftedUserId = -1 where p.id in :ids")
+  int unlinkGiftedPairsById(@Param("ids") Collection<Long> ids);
+
+  /** Groups owned by the user that still have members. */
+  @Query(
+      "select g.id from GroupEntity g where g.owner = :userId"
+          + " and exists (select r.id from UserGroupRelationEntity r where r.groupId = g.id"
+          + "   and exists (select u.id from UserEntity u where u.id = r.userId))"
+          + " order by g.id")
+  List<Long> findReassignableGroupIds(@Param("userId") long userId, Pageable pageable);
+
+  @Modifying
+  @Query(
+      "update GroupEntity g set g.owner ="
+          + " (select min(r.userId) from UserGroupRelationEntity r where r.groupId = g.id"
+          + "   and exists (select u.id from UserEntity u where u.id = r.userId))"
+          + " where g.id in :ids"
+          + " and exists (select r.id from UserGroupRelationEntity r where r.groupId = g.id"
+          + "   and exists (select u.id from UserEntity u where u.id = r.userId))")
+  int reassignGroupsById(@Param("ids") Collection<Long> ids);
+
+  @Query("select g.id from GroupEntity g where g.owner = :userId order by g.id")
+  List<Long> findOwnedGroupIds(@Param("userId") long userId, Pageable pageable);
+
+  @Modifying
+  @Query(
+      "delete from PairEntity p where p.iterationId in"
+          + " (select i.id from IterationEntity i where i.groupId in :ids)")
+  int deleteGroupPairsById(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Query("delete from IterationEntity i where i.groupId in :ids")
+  int deleteGroupIterationsById(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Query("delete from GroupEntity g where g.id in :ids")
+  int deleteGroupsById(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,17 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/** Fragment of UserLoginMutationRepository writing the logins of many users at once. */
+public interface UserLoginBatchMutationRepository {
+
+  /**
+   * Adds the logins to the counters of every user in JDBC batches, joining the current
+   * transaction. Counters are incremented in place, so concurrent updates of a user are kept.
+   */
+  void addLogins(Collection<UserLogins> logins, LocalDateTime updateAt);
+
+  /** Logins of a user since the last flush, lastConnection is the latest of them. */
+  record UserLogins(long userId, long logins, LocalDateTime lastConnection) {}
+}
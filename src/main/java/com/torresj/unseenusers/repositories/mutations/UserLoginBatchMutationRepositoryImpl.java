@@ -0,0 +1,42 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Plain JDBC, JPQL bulk updates are sent one statement at a time. The template runs on the primary
+ * datasource, the mutations one, so it takes part in mutation transactions.
+ */
+@RequiredArgsConstructor
+public class UserLoginBatchMutationRepositoryImpl implements UserLoginBatchMutationRepository {
+
+  private static final int BATCH_SIZE = 500;
+  private static final String ADD_LOGINS =
+      "update user_entity set num_logins = num_logins + ?,"
+          + " last_connection = case when last_connection is null or last_connection < ?"
+          + "   then ? else last_connection end,"
+          + " update_at = ?"
+          + " where id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public void addLogins(Collection<UserLogins> logins, LocalDateTime updateAt) {
+    Timestamp updateAtTimestamp = Timestamp.valueOf(updateAt);
+    jdbcTemplate.batchUpdate(
+        ADD_LOGINS,
+        logins,
+        BATCH_SIZE,
+        (statement, userLogins) -> {
+          Timestamp lastConnection = Timestamp.valueOf(userLogins.lastConnection());
+          statement.setLong(1, userLogins.logins());
+          statement.setTimestamp(2, lastConnection);
+          statement.setTimestamp(3, lastConnection);
+          statement.setTimestamp(4, updateAtTimestamp);
+          statement.setLong(5, userLogins.userId());
+        });
+  }
+}
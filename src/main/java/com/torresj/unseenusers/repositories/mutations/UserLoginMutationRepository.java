@@ -0,0 +1,24 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import com.torresj.unseen.entities.UserEntity;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Login counters are incremented in place instead of read, modified and saved, so a flush never
+ * overwrites a concurrent update of the same user.
+ */
+public interface UserLoginMutationRepository
+    extends Repository<UserEntity, Long>, UserLoginBatchMutationRepository {
+
+  /** Emails of flushed users, so reads of them by email are routed to primary as well. */
+  List<LoginUserView> findByIdIn(Collection<Long> ids);
+
+  /** Closed projection of the keys of a user. */
+  interface LoginUserView {
+    Long getId();
+
+    String getEmail();
+  }
+}
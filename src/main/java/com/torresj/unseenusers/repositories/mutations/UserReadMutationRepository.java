@@ -0,0 +1,27 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenusers.repositories.queries.UserVersionView;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Reads served by the mutation datasource. Only used when the replica may not have a recent write
+ * yet, see ReadRouter.
+ */
+public interface UserReadMutationRepository extends Repository<UserEntity, Long> {
+
+  Optional<UserEntity> findById(Long id);
+
+  Optional<UserEntity> findByEmail(String email);
+
+  Optional<UserVersionView> findVersionById(Long id);
+
+  Optional<UserVersionView> findVersionByEmail(String email);
+
+  List<UserEntity> findByIdIn(Collection<Long> ids);
+
+  List<UserEntity> findByEmailIn(Collection<String> emails);
+}
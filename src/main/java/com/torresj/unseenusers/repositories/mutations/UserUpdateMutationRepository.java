@@ -0,0 +1,33 @@
+package com.torresj.unseenusers.repositories.mutations;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * User updates only write the columns the request changes, so they never overwrite login counters
+ * flushed meanwhile by UserLoginBuffer. Null values keep the current column value.
+ */
+public interface UserUpdateMutationRepository extends Repository<UserEntity, Long> {
+
+  @Modifying(clearAutomatically = true)
+  @Query(
+      "update UserEntity u set u.name = coalesce(:name, u.name),"
+          + " u.password = coalesce(:password, u.password),"
+          + " u.role = coalesce(:role, u.role),"
+          + " u.validated = case when :validated = true then true else u.validated end,"
+          + " u.updateAt = :updateAt,"
+          + " u.version = u.version + 1"
+          + " where u.id = :userId")
+  int update(
+      @Param("userId") long userId,
+      @Param("name") String name,
+      @Param("password") String password,
+      @Param("role") Role role,
+      @Param("validated") boolean validated,
+      @Param("updateAt") LocalDateTime updateAt);
+}
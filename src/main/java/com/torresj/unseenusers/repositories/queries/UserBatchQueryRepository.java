@@ -0,0 +1,14 @@
+package com.torresj.unseenusers.repositories.queries;
+
+import com.torresj.unseen.entities.UserEntity;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.repository.Repository;
+
+/** Multi-user lookups resolved with a single IN query. */
+public interface UserBatchQueryRepository extends Repository<UserEntity, Long> {
+
+  List<UserEntity> findByIdIn(Collection<Long> ids);
+
+  List<UserEntity> findByEmailIn(Collection<String> emails);
+}
@@ -0,0 +1,43 @@
+package com.torresj.unseenusers.repositories.queries;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Forward-only reads over the whole users table. Streams must be consumed inside a read-only
+ * transaction and closed afterwards.
+ */
+public interface UserExportQueryRepository extends Repository<UserEntity, Long> {
+
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query(
+      "select u from UserEntity u"
+          + " where (:role is null or u.role = :role)"
+          + " and (:filter is null or lower(u.email) like lower(concat('%', :filter, '%')))"
+          + " order by u.id")
+  Stream<UserEntity> streamAll(@Param("filter") String filter, @Param("role") Role role);
+
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select u.email from UserEntity u")
+  Stream<String> streamEmails();
+
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select u.id as id, u.email as email, u.name as name, u.role as role from UserEntity u")
+  Stream<UserSearchView> streamSearchViews();
+}
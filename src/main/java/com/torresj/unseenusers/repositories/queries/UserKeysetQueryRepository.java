@@ -0,0 +1,41 @@
+package com.torresj.unseenusers.repositories.queries;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import java.time.LocalDateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Keyset pagination over users ordered by (createAt, id) descending. Results are returned as
+ * {@link Slice} so no count query is issued, and the seek predicate avoids OFFSET scans.
+ *
+ * <p>Pages are read from the (create_at, id) index created by {@code
+ * db/mariadb/user_entity_keyset.sql}, without it every page sorts the whole table.
+ */
+public interface UserKeysetQueryRepository extends Repository<UserEntity, Long> {
+
+  @Query(
+      "select u from UserEntity u"
+          + " where (:role is null or u.role = :role)"
+          + " and (:filter is null or lower(u.email) like lower(concat('%', :filter, '%')))"
+          + " order by u.createAt desc, u.id desc")
+  Slice<UserEntity> findFirstPage(
+      @Param("filter") String filter, @Param("role") Role role, Pageable pageable);
+
+  @Query(
+      "select u from UserEntity u"
+          + " where (u.createAt < :createAt or (u.createAt = :createAt and u.id < :id))"
+          + " and (:role is null or u.role = :role)"
+          + " and (:filter is null or lower(u.email) like lower(concat('%', :filter, '%')))"
+          + " order by u.createAt desc, u.id desc")
+  Slice<UserEntity> findPageAfter(
+      @Param("createAt") LocalDateTime createAt,
+      @Param("id") long id,
+      @Param("filter") String filter,
+      @Param("role") Role role,
+      Pageable pageable);
+}
@@ -0,0 +1,14 @@
+package com.torresj.unseenusers.repositories.queries;
+
+import com.torresj.unseen.entities.Role;
+
+/** Closed projection of the user columns kept in the search index. */
+public interface UserSearchView {
+  Long getId();
+
+  String getEmail();
+
+  String getName();
+
+  Role getRole();
+}
@@ -0,0 +1,14 @@
+package com.torresj.unseenusers.repositories.queries;
+
+import java.time.LocalDateTime;
+
+/** Closed projection of the user columns that change the representation version. */
+public interface UserVersionView {
+  Long getId();
+
+  LocalDateTime getUpdateAt();
+
+  long getNumLogins();
+
+  LocalDateTime getLastConnection();
+}
@@ -0,0 +1,33 @@
+package com.torresj.unseenusers.repositories.queries;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection of the user columns exposed by the API. Queries returning it select only
+ * these columns and never load entities into the persistence context.
+ */
+public interface UserView {
+  Long getId();
+
+  String getEmail();
+
+  String getName();
+
+  String getPhotoUrl();
+
+  long getNumLogins();
+
+  boolean isValidated();
+
+  AuthProvider getProvider();
+
+  Role getRole();
+
+  LocalDateTime getCreateAt();
+
+  LocalDateTime getUpdateAt();
+
+  LocalDateTime getLastConnection();
+}
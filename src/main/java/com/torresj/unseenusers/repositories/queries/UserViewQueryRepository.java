@@ -0,0 +1,46 @@
+package com.torresj.unseenusers.repositories.queries;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+
+/**
+ * User pages read as {@link UserView} projections, the same filters as UserQueryRepository. Slices
+ * read one more row instead of counting the users of every page.
+ */
+public interface UserViewQueryRepository extends Repository<UserEntity, Long> {
+
+  Page<UserView> findAllBy(Pageable pageable);
+
+  Page<UserView> findByRole(Role role, Pageable pageable);
+
+  Page<UserView> findByEmailContainingIgnoreCase(String email, Pageable pageable);
+
+  Page<UserView> findByEmailContainingIgnoreCaseAndRole(
+      String email, Role role, Pageable pageable);
+
+  Slice<UserView> findSliceBy(Pageable pageable);
+
+  Slice<UserView> findSliceByRole(Role role, Pageable pageable);
+
+  Slice<UserView> findSliceByEmailContainingIgnoreCase(String email, Pageable pageable);
+
+  Slice<UserView> findSliceByEmailContainingIgnoreCaseAndRole(
+      String email, Role role, Pageable pageable);
+
+  long countBy();
+
+  long countByRole(Role role);
+
+  long countByEmailContainingIgnoreCase(String email);
+
+  long countByEmailContainingIgnoreCaseAndRole(String email, Role role);
+
+  Optional<UserVersionView> findVersionById(Long id);
+
+  Optional<UserVersionView> findVersionByEmail(String email);
+}
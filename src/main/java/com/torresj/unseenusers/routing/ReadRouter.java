@@ -0,0 +1,193 @@
+package com.torresj.unseenusers.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.torresj.unseenusers.repositories.queries.UserVersionView;
+import com.torresj.unseenusers.repositories.queries.UserViewQueryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chooses the datasource for single user reads. Reads go to the replica unless the user was
+ * written recently by this instance, the request carries a recent consistency token from a write
+ * served by any instance, or the measured replica lag is above the limit.
+ *
+ * <p>Lag is measured by polling the replica for the oldest pending user written by this instance
+ * until it shows the written version, so it costs one primary key lookup per check and only while
+ * writes are pending. A probe that never shows up, because the user was deleted or the stored time
+ * is less precise than the written one, expires after the probe timeout and the next write becomes
+ * the probe, so reads do not stay on the primary for good. Times are compared to the second, the
+ * precision of the datetime columns.
+ */
+@Component
+@Slf4j
+public class ReadRouter {
+
+  public static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+
+  private static final ThreadLocal<Long> REQUEST_TOKEN = new ThreadLocal<>();
+
+  private final UserViewQueryRepository userViewQueryRepository;
+  private final Duration window;
+  private final Duration maxLag;
+  private final long probeTimeoutNanos;
+  private final Cache<Long, Boolean> recentIds;
+  private final Cache<String, Boolean> recentEmails;
+  private final Counter replicaReads;
+  private final Counter recentWriteReads;
+  private final Counter tokenReads;
+  private final Counter lagReads;
+  private final AtomicReference<PendingWrite> pendingWrite = new AtomicReference<>();
+  private volatile long lagMillis;
+  private volatile boolean lagging;
+
+  public ReadRouter(
+      UserViewQueryRepository userViewQueryRepository,
+      @Value("${replica.read-your-writes-window:10s}") Duration window,
+      @Value("${replica.max-lag:5s}") Duration maxLag,
+      @Value("${replica.probe-timeout:1m}") Duration probeTimeout,
+      MeterRegistry meterRegistry) {
+    this.userViewQueryRepository = userViewQueryRepository;
+    this.window = window;
+    this.maxLag = maxLag;
+    this.probeTimeoutNanos = probeTimeout.toNanos();
+    this.recentIds = Caffeine.newBuilder().expireAfterWrite(window).build();
+    this.recentEmails = Caffeine.newBuilder().expireAfterWrite(window).build();
+
+    this.replicaReads = reads(meterRegistry, "replica", "default");
+    this.recentWriteReads = reads(meterRegistry, "primary", "recent-write");
+    this.tokenReads = reads(meterRegistry, "primary", "token");
+    this.lagReads = reads(meterRegistry, "primary", "lag");
+    Gauge.builder("users.replica.lag", this, router -> router.lagMillis)
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  /** Token sent by the client, the issue time of a write response. */
+  public static void startRequest(Long token) {
+    REQUEST_TOKEN.set(token);
+  }
+
+  public static void endRequest() {
+    REQUEST_TOKEN.remove();
+  }
+
+  public void recordWrite(long id, String email, LocalDateTime updateAt) {
+    recentIds.put(id, true);
+    recentEmails.put(email, true);
+
+    // Oldest write not seen in the replica yet is the lag sample, unless it expired
+    if (updateAt == null) return;
+    long now = System.nanoTime();
+    pendingWrite.updateAndGet(
+        write ->
+            write == null || expired(write, now) ? new PendingWrite(id, updateAt, now) : write);
+  }
+
+  /** Deleted users are read from primary as well, so they are not found right away. */
+  public void recordDelete(long id, String email) {
+    recentIds.put(id, true);
+    recentEmails.put(email, true);
+    pendingWrite.updateAndGet(write -> write != null && write.id() == id ? null : write);
+  }
+
+  public boolean readFromPrimary(long id) {
+    return readFromPrimary(writtenRecently(id));
+  }
+
+  public boolean readFromPrimary(String email) {
+    return readFromPrimary(writtenRecently(email));
+  }
+
+  /** Whether this instance wrote the user within the window, without counting a read. */
+  public boolean writtenRecently(long id) {
+    return recentIds.getIfPresent(id) != null;
+  }
+
+  public boolean writtenRecently(String email) {
+    return recentEmails.getIfPresent(email) != null;
+  }
+
+  private boolean readFromPrimary(boolean recentWrite) {
+    if (lagging) {
+      lagReads.increment();
+      return true;
+    }
+    if (recentWrite) {
+      recentWriteReads.increment();
+      return true;
+    }
+    Long token = REQUEST_TOKEN.get();
+    if (token != null && token > System.currentTimeMillis() - window.toMillis()) {
+      tokenReads.increment();
+      return true;
+    }
+    replicaReads.increment();
+    return false;
+  }
+
+  @Scheduled(fixedDelayString = "${replica.lag-check-interval:1000}")
+  public void checkLag() {
+    PendingWrite write = pendingWrite.get();
+    if (write == null) return;
+    long now = System.nanoTime();
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(now - write.writtenAt());
+
+    // Replica errors count as lag, reads fall back to primary
+    boolean replicated;
+    boolean failed = false;
+    try {
+      Optional<UserVersionView> version = userViewQueryRepository.findVersionById(write.id());
+      replicated =
+          version.isPresent()
+              && version.get().getUpdateAt() != null
+              && !version
+                  .get()
+                  .getUpdateAt()
+                  .isBefore(write.updateAt().truncatedTo(ChronoUnit.SECONDS));
+    } catch (RuntimeException e) {
+      log.warn("[READ ROUTER] Replica lag check failed: " + e.getMessage());
+      replicated = false;
+      failed = true;
+    }
+
+    lagMillis = elapsed;
+    if (replicated) {
+      pendingWrite.compareAndSet(write, null);
+      lagging = false;
+    } else if (!failed && expired(write, now)) {
+      // The replica answers but may never show this write, the next write is measured instead
+      log.warn("[READ ROUTER] Write of user " + write.id() + " not seen in replica, probe expired");
+      pendingWrite.compareAndSet(write, null);
+      lagging = false;
+    } else if (elapsed >= maxLag.toMillis()) {
+      if (!lagging) log.warn("[READ ROUTER] Replica lag over " + elapsed + "ms, reading primary");
+      lagging = true;
+    }
+  }
+
+  private boolean expired(PendingWrite write, long now) {
+    return now - write.writtenAt() >= probeTimeoutNanos;
+  }
+
+  private static Counter reads(MeterRegistry meterRegistry, String datasource, String reason) {
+    return Counter.builder("users.reads.routing")
+        .description("Single user reads by datasource and routing reason")
+        .tag("datasource", datasource)
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
+  private record PendingWrite(long id, LocalDateTime updateAt, long writtenAt) {}
+}
@@ -0,0 +1,223 @@
+package com.torresj.unseenusers.search;
+
+import com.torresj.unseen.entities.Role;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Trigram index over user emails and names. Every document gets an increasing ordinal, so posting
+ * lists are append-only sorted int arrays. Updated documents get a new ordinal and removed ones
+ * are only marked as dead, their ordinals are dropped by a compacted copy or a rebuild.
+ */
+class TrigramIndex {
+
+  private static final int GRAM = 3;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Postings> postings = new HashMap<>();
+  private final Map<Long, Integer> ordinals = new HashMap<>();
+  private long[] ids = new long[1024];
+  private String[] emails = new String[1024];
+  private String[] names = new String[1024];
+  private Role[] roles = new Role[1024];
+  private int size;
+
+  void put(long id, String email, String name, Role role) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+      if (size == ids.length) grow();
+      int ordinal = size++;
+      ids[ordinal] = id;
+      emails[ordinal] = normalize(email);
+      names[ordinal] = normalize(name);
+      roles[ordinal] = role;
+      ordinals.put(id, ordinal);
+      addPostings(emails[ordinal], ordinal);
+      addPostings(names[ordinal], ordinal);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void remove(long id) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the ids of users whose email or name contains the query, best matches first. Queries
+   * shorter than a trigram scan every document, which is still done in memory.
+   */
+  List<Long> search(String query, Role role) {
+    String normalized = normalize(query);
+    lock.readLock().lock();
+    try {
+      List<Match> matches = new ArrayList<>();
+      long[] grams = grams(normalized);
+      if (grams.length == 0) {
+        for (int ordinal = 0; ordinal < size; ordinal++) match(ordinal, normalized, role, matches);
+      } else {
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+          lists[i] = postings.get(grams[i]);
+          if (lists[i] == null) return List.of();
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        // Candidates are taken from the shortest list and checked against the rest
+        Postings shortest = lists[0];
+        for (int i = 0; i < shortest.size; i++) {
+          int ordinal = shortest.ordinals[i];
+          if (containedInAll(lists, ordinal)) match(ordinal, normalized, role, matches);
+        }
+      }
+      matches.sort(Comparator.naturalOrder());
+      return matches.stream().map(Match::id).toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  int documents() {
+    lock.readLock().lock();
+    try {
+      return ordinals.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Ordinals of removed or updated documents still taking space. */
+  int deadDocuments() {
+    lock.readLock().lock();
+    try {
+      return size - ordinals.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Copy of the live documents in ordinal order, so postings stay sorted. */
+  TrigramIndex compact() {
+    TrigramIndex compacted = new TrigramIndex();
+    lock.readLock().lock();
+    try {
+      for (int ordinal = 0; ordinal < size; ordinal++) {
+        if (emails[ordinal] != null)
+          compacted.put(ids[ordinal], emails[ordinal], names[ordinal], roles[ordinal]);
+      }
+      return compacted;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  int trigrams() {
+    lock.readLock().lock();
+    try {
+      return postings.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void removeLocked(long id) {
+    Integer ordinal = ordinals.remove(id);
+    if (ordinal == null) return;
+    emails[ordinal] = null;
+    names[ordinal] = null;
+  }
+
+  private void match(int ordinal, String query, Role role, List<Match> matches) {
+    String email = emails[ordinal];
+    if (email == null || (role != null && roles[ordinal] != role)) return;
+    int rank = Math.min(rank(email, query, 0), rank(names[ordinal], query, 3));
+    if (rank < Integer.MAX_VALUE) matches.add(new Match(ids[ordinal], rank, email.length()));
+  }
+
+  /** Exact match first, then prefix, then start of a word and finally any substring. */
+  private static int rank(String value, String query, int offset) {
+    int index = value.indexOf(query);
+    if (index < 0) return Integer.MAX_VALUE;
+    if (value.length() == query.length()) return 0;
+    if (index == 0) return 1 + offset;
+    do {
+      if (!Character.isLetterOrDigit(value.charAt(index - 1))) return 2 + offset;
+      index = value.indexOf(query, index + 1);
+    } while (index > 0);
+    return 3 + offset;
+  }
+
+  private static boolean containedInAll(Postings[] lists, int ordinal) {
+    for (int i = 1; i < lists.length; i++) {
+      if (Arrays.binarySearch(lists[i].ordinals, 0, lists[i].size, ordinal) < 0) return false;
+    }
+    return true;
+  }
+
+  private void addPostings(String value, int ordinal) {
+    for (long gram : grams(value)) {
+      postings.computeIfAbsent(gram, key -> new Postings()).add(ordinal);
+    }
+  }
+
+  private void grow() {
+    int length = ids.length * 2;
+    ids = Arrays.copyOf(ids, length);
+    emails = Arrays.copyOf(emails, length);
+    names = Arrays.copyOf(names, length);
+    roles = Arrays.copyOf(roles, length);
+  }
+
+  private static String normalize(String value) {
+    return value == null ? "" : value.toLowerCase(Locale.ROOT);
+  }
+
+  /** Distinct trigrams of the value, each one packed in a long as three 16-bit chars. */
+  private static long[] grams(String value) {
+    if (value.length() < GRAM) return new long[0];
+    return IntStream.rangeClosed(0, value.length() - GRAM)
+        .mapToLong(
+            i ->
+                ((long) value.charAt(i) << 32)
+                    | ((long) value.charAt(i + 1) << 16)
+                    | value.charAt(i + 2))
+        .distinct()
+        .toArray();
+  }
+
+  private static class Postings {
+    private int[] ordinals = new int[4];
+    private int size;
+
+    /** Ordinals are added in increasing order, so the list stays sorted. */
+    private void add(int ordinal) {
+      if (size > 0 && ordinals[size - 1] == ordinal) return;
+      if (size == ordinals.length) ordinals = Arrays.copyOf(ordinals, size * 2);
+      ordinals[size++] = ordinal;
+    }
+  }
+
+  private record Match(long id, int rank, int length) implements Comparable<Match> {
+
+    @Override
+    public int compareTo(Match other) {
+      if (rank != other.rank) return Integer.compare(rank, other.rank);
+      if (length != other.length) return Integer.compare(length, other.length);
+      return Long.compare(id, other.id);
+    }
+  }
+}
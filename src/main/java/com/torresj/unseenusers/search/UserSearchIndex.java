@@ -0,0 +1,182 @@
+package com.torresj.unseenusers.search;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenusers.repositories.queries.UserExportQueryRepository;
+import com.torresj.unseenusers.repositories.queries.UserSearchView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory search over user emails and names. The index is built from the query datasource at
+ * startup, kept up to date by this instance writes and rebuilt periodically, which picks up writes
+ * from other instances.
+ *
+ * <p>Rebuilds fill a fresh index and swap it in. The replica may still return users this instance
+ * removed or renamed during the build or shortly before, so writes of the last replay window are
+ * applied again to the fresh index before the swap. Removed and updated users leave dead entries,
+ * the index is compacted in memory once they outnumber the live ones. Both run on a thread of
+ * their own, apart from the shared scheduler.
+ */
+@Component
+@Slf4j
+public class UserSearchIndex {
+
+  private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+  private final UserExportQueryRepository userExportQueryRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final long rebuildInterval;
+  private final long replayWindowNanos;
+  private final ScheduledExecutorService indexExecutor;
+  private final AtomicBoolean compactionPending = new AtomicBoolean();
+  private final Object writes = new Object();
+  private final Deque<Write> recentWrites = new ArrayDeque<>();
+  private volatile TrigramIndex index;
+  private boolean building;
+
+  public UserSearchIndex(
+      UserExportQueryRepository userExportQueryRepository,
+      @Qualifier("queriesTransactionManager") PlatformTransactionManager transactionManager,
+      @Value("${search.users.rebuild-interval:3600000}") long rebuildInterval,
+      @Value("${search.users.replay-window:1m}") Duration replayWindow,
+      MeterRegistry meterRegistry) {
+    this.userExportQueryRepository = userExportQueryRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.rebuildInterval = rebuildInterval;
+    this.replayWindowNanos = replayWindow.toNanos();
+    this.indexExecutor =
+        ExecutorServiceMetrics.monitor(
+            meterRegistry,
+            Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("search-index-")),
+            "search-index");
+
+    Gauge.builder("users.search.index.documents", () -> index == null ? 0 : index.documents())
+        .register(meterRegistry);
+    Gauge.builder("users.search.index.dead", () -> index == null ? 0 : index.deadDocuments())
+        .register(meterRegistry);
+    Gauge.builder("users.search.index.trigrams", () -> index == null ? 0 : index.trigrams())
+        .register(meterRegistry);
+  }
+
+  /** Builds the index right away and then every rebuild interval. */
+  @PostConstruct
+  public void start() {
+    indexExecutor.scheduleWithFixedDelay(
+        this::rebuild, 0, rebuildInterval, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    indexExecutor.shutdownNow();
+  }
+
+  /** Ranked ids of matching users, empty until the index is built for the first time. */
+  public Optional<List<Long>> search(String query, Role role) {
+    TrigramIndex current = index;
+    if (current == null) return Optional.empty();
+    return Optional.of(current.search(query, role));
+  }
+
+  public void put(long id, String email, String name, Role role) {
+    write(new Write(id, email, name, role, false, System.nanoTime()));
+  }
+
+  public void remove(long id) {
+    write(new Write(id, null, null, null, true, System.nanoTime()));
+  }
+
+  public synchronized void rebuild() {
+    log.debug("[USER SEARCH INDEX] Building search index");
+    TrigramIndex next = new TrigramIndex();
+    long startedAt = System.nanoTime();
+
+    // Writes are kept from now on, to be replayed over what the replica returns
+    synchronized (writes) {
+      building = true;
+    }
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            try (Stream<UserSearchView> users = userExportQueryRepository.streamSearchViews()) {
+              users.forEach(
+                  user -> next.put(user.getId(), user.getEmail(), user.getName(), user.getRole()));
+            }
+          });
+      synchronized (writes) {
+        trimWrites(startedAt - replayWindowNanos);
+        recentWrites.forEach(write -> write.applyTo(next));
+        index = next;
+      }
+      log.info("[USER SEARCH INDEX] Search index built with " + next.documents() + " users");
+    } catch (RuntimeException e) {
+      log.warn("[USER SEARCH INDEX] Search index build failed: " + e.getMessage());
+    } finally {
+      synchronized (writes) {
+        building = false;
+      }
+    }
+  }
+
+  /** Replaces the index with a copy of its live users, done in memory without reading the DB. */
+  public void compact() {
+    compactionPending.set(false);
+    synchronized (writes) {
+      TrigramIndex current = index;
+      if (current == null) return;
+      int dead = current.deadDocuments();
+      index = current.compact();
+      log.debug("[USER SEARCH INDEX] Search index compacted, " + dead + " dead users dropped");
+    }
+  }
+
+  private void write(Write write) {
+    TrigramIndex current;
+    synchronized (writes) {
+      current = index;
+      if (current != null) write.applyTo(current);
+      recentWrites.addLast(write);
+      if (!building) trimWrites(write.writtenAt() - replayWindowNanos);
+    }
+
+    // Dead users waste memory and slow down searches
+    if (current != null
+        && current.deadDocuments() > Math.max(MIN_DEAD_TO_COMPACT, current.documents())
+        && compactionPending.compareAndSet(false, true)) indexExecutor.execute(this::compact);
+  }
+
+  private void trimWrites(long before) {
+    while (!recentWrites.isEmpty() && recentWrites.peekFirst().writtenAt() - before < 0)
+      recentWrites.removeFirst();
+  }
+
+  private record Write(
+      long id, String email, String name, Role role, boolean removed, long writtenAt) {
+
+    private void applyTo(TrigramIndex index) {
+      if (removed) index.remove(id);
+      else index.put(id, email, name, role);
+    }
+  }
+}
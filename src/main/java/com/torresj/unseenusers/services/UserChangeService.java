@@ -0,0 +1,195 @@
+package com.torresj.unseenusers.services;
+
+import com.torresj.unseenusers.dtos.UserChangeDto;
+import com.torresj.unseenusers.dtos.UserChangesDto;
+import com.torresj.unseenusers.mappers.UserChangeMapper;
+import com.torresj.unseenusers.repositories.mutations.UserChangeMutationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Change feed of user mutations, read from the outbox table. Sequences are assigned in commit
+ * order by UserChangeOutbox, so changes are served as soon as they are visible.
+ *
+ * <p>Streams are sent by their own executor, one send at a time per subscriber. A subscriber whose
+ * send takes longer than the send timeout is dropped, and resumes from its Last-Event-ID when it
+ * reconnects.
+ */
+@Service
+@Slf4j
+public class UserChangeService {
+
+  public static final int MAX_CHANGES = 1000;
+
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+  private final UserChangeMutationRepository userChangeMutationRepository;
+  private final UserChangeMapper userChangeMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration retention;
+  private final Duration sendTimeout;
+  private final ExecutorService sendExecutor;
+
+  public UserChangeService(
+      UserChangeMutationRepository userChangeMutationRepository,
+      UserChangeMapper userChangeMapper,
+      @Qualifier("mutationsTransactionManager") PlatformTransactionManager transactionManager,
+      @Value("${users.changes.retention:7d}") Duration retention,
+      @Value("${users.changes.senders:4}") int senders,
+      @Value("${users.changes.send-timeout:10s}") Duration sendTimeout,
+      MeterRegistry meterRegistry) {
+    this.userChangeMutationRepository = userChangeMutationRepository;
+    this.userChangeMapper = userChangeMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.retention = retention;
+    this.sendTimeout = sendTimeout;
+    this.sendExecutor =
+        ExecutorServiceMetrics.monitor(
+            meterRegistry,
+            Executors.newFixedThreadPool(senders, new CustomizableThreadFactory("user-changes-")),
+            "user-changes");
+    meterRegistry.gaugeCollectionSize("users.changes.subscribers", List.of(), subscribers);
+  }
+
+  /** Changes after the since sequence, next is the sequence to ask from in the next call. */
+  public UserChangesDto changes(long since, int limit) {
+    log.debug("[USER CHANGE SERVICE] Getting " + limit + " changes since " + since);
+
+    List<UserChangeDto> changes =
+        userChangeMutationRepository
+            .findBySequenceGreaterThanOrderBySequenceAsc(
+                since, PageRequest.of(0, Math.min(Math.max(limit, 1), MAX_CHANGES)))
+            .stream()
+            .map(userChangeMapper::toUserChangeDto)
+            .toList();
+    long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+
+    return UserChangesDto.builder().changes(changes).next(next).build();
+  }
+
+  /** Sends changes after the since sequence, and every new one, as server-sent events. */
+  public SseEmitter stream(long since) {
+    log.debug("[USER CHANGE SERVICE] Streaming changes since " + since);
+
+    SseEmitter emitter = new SseEmitter();
+    Subscriber subscriber = new Subscriber(emitter, since);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(() -> subscribers.remove(subscriber));
+    emitter.onError(error -> subscribers.remove(subscriber));
+    subscribers.add(subscriber);
+    return emitter;
+  }
+
+  /**
+   * Polls the outbox once for every subscriber, from the oldest sequence any of them has seen.
+   * Polling instead of publishing on write also streams changes made by other instances.
+   */
+  @Scheduled(fixedDelayString = "${users.changes.poll-interval:1000}")
+  public void publish() {
+    if (subscribers.isEmpty()) return;
+
+    long since = subscribers.stream().mapToLong(Subscriber::sequence).min().orElse(0);
+    List<UserChangeDto> changes;
+    try {
+      changes = changes(since, MAX_CHANGES).getChanges();
+    } catch (RuntimeException e) {
+      log.warn("[USER CHANGE SERVICE] Changes lookup failed: " + e.getMessage());
+      return;
+    }
+
+    for (Subscriber subscriber : subscribers) {
+      Future<?> sending = subscriber.sending;
+      if (sending != null && !sending.isDone()) {
+        if (System.nanoTime() - subscriber.sendingSince > sendTimeout.toNanos()) {
+          // The emitter is locked by the blocked send, its thread completes it
+          log.warn("[USER CHANGE SERVICE] Dropping subscriber, send took over " + sendTimeout);
+          subscriber.dropped = true;
+          subscribers.remove(subscriber);
+        }
+        continue;
+      }
+      if (changes.isEmpty() || changes.get(changes.size() - 1).getSequence() <= subscriber.sequence)
+        continue;
+      subscriber.sendingSince = System.nanoTime();
+      subscriber.sending = sendExecutor.submit(() -> send(subscriber, changes));
+    }
+  }
+
+  private void send(Subscriber subscriber, List<UserChangeDto> changes) {
+    try {
+      for (UserChangeDto change : changes) {
+        if (subscriber.dropped) break;
+        if (change.getSequence() <= subscriber.sequence) continue;
+        subscriber.emitter.send(
+            SseEmitter.event()
+                .id(String.valueOf(change.getSequence()))
+                .name(change.getType().name())
+                .data(change, MediaType.APPLICATION_JSON));
+        subscriber.sequence = change.getSequence();
+      }
+      if (subscriber.dropped)
+        subscriber.emitter.completeWithError(new TimeoutException("Send timed out"));
+    } catch (IOException | IllegalStateException e) {
+      // Client is gone, it can resume from its Last-Event-ID
+      subscribers.remove(subscriber);
+      subscriber.emitter.completeWithError(e);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${users.changes.purge-interval:3600000}")
+  public void purge() {
+    try {
+      Integer purged =
+          transactionTemplate.execute(
+              status ->
+                  userChangeMutationRepository.deleteByCreateAtBefore(
+                      LocalDateTime.now().minus(retention)));
+      if (purged != null && purged > 0)
+        log.info("[USER CHANGE SERVICE] " + purged + " changes purged, older than " + retention);
+    } catch (RuntimeException e) {
+      log.warn("[USER CHANGE SERVICE] Changes purge failed: " + e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sendExecutor.shutdownNow();
+  }
+
+  private static class Subscriber {
+    private final SseEmitter emitter;
+    private volatile long sequence;
+    private volatile Future<?> sending;
+    private volatile long sendingSince;
+    private volatile boolean dropped;
+
+    private Subscriber(SseEmitter emitter, long sequence) {
+      this.emitter = emitter;
+      this.sequence = sequence;
+    }
+
+    private long sequence() {
+      return sequence;
+    }
+  }
+}
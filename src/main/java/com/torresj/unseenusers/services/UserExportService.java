@@ -0,0 +1,58 @@
+package com.torresj.unseenusers.services;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenusers.dtos.UserDto;
+import com.torresj.unseenusers.mappers.UserMapper;
+import com.torresj.unseenusers.repositories.queries.UserExportQueryRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Slf4j
+@Timed(value = "users.service", histogram = true)
+public class UserExportService {
+  private final UserExportQueryRepository userExportQueryRepository;
+  private final UserMapper userMapper;
+  private final EntityManager entityManager;
+
+  public UserExportService(
+      UserExportQueryRepository userExportQueryRepository,
+      UserMapper userMapper,
+      @Qualifier("queriesEntityManagerFactory") EntityManagerFactory entityManagerFactory) {
+    this.userExportQueryRepository = userExportQueryRepository;
+    this.userMapper = userMapper;
+    this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+  }
+
+  @Transactional(transactionManager = "queriesTransactionManager", readOnly = true)
+  public long export(String filter, Role role, Consumer<UserDto> consumer) {
+    log.debug("[USER EXPORT SERVICE] Exporting users with filter " + filter + " role " + role);
+
+    long exported = 0;
+    try (Stream<UserEntity> users = userExportQueryRepository.streamAll(filter, role)) {
+      Iterator<UserEntity> iterator = users.iterator();
+      while (iterator.hasNext()) {
+        UserEntity userEntity = iterator.next();
+        consumer.accept(userMapper.toUserDto(userEntity));
+
+        // Keep the persistence context empty so memory does not grow with the table
+        entityManager.detach(userEntity);
+        exported++;
+      }
+    }
+
+    log.debug("[USER EXPORT SERVICE] " + exported + " users exported");
+
+    return exported;
+  }
+}
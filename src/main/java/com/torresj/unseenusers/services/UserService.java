@@ -1,61 +1,161 @@
 package com.torresj.unseenusers.services;
 
 import com.torresj.unseen.entities.*;
-import com.torresj.unseen.repositories.mutations.*;
-import com.torresj.unseen.repositories.queries.*;
+import com.torresj.unseen.repositories.mutations.UserMutationRepository;
+import com.torresj.unseen.repositories.queries.UserQueryRepository;
+import com.torresj.unseenusers.cache.SingleFlight;
+import com.torresj.unseenusers.cache.UserCache;
+import com.torresj.unseenusers.cache.UserCountCache;
+import com.torresj.unseenusers.cache.UserEmailFilter;
+import com.torresj.unseenusers.cache.UserLoginBuffer;
+import com.torresj.unseenusers.dtos.CursorPageUserDto;
 import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.TotalAccuracy;
+import com.torresj.unseenusers.dtos.RegisterStatus;
+import com.torresj.unseenusers.dtos.UserBatchDto;
 import com.torresj.unseenusers.dtos.UpdateUserDto;
+import com.torresj.unseenusers.dtos.UserDeletionDto;
+import com.torresj.unseenusers.dtos.UserDeletionJobDto;
 import com.torresj.unseenusers.dtos.UserDto;
 import com.torresj.unseenusers.dtos.UserRegisterDto;
+import com.torresj.unseenusers.dtos.UserRegisterResultDto;
+import com.torresj.unseenusers.entities.UserChangeType;
+import com.torresj.unseenusers.exceptions.InvalidCursorException;
+import com.torresj.unseenusers.exceptions.PasswordHashingRejectedException;
 import com.torresj.unseenusers.exceptions.UserAlreadyExistsException;
+import com.torresj.unseenusers.exceptions.UserDeletionJobNotFoundException;
 import com.torresj.unseenusers.exceptions.UserNotFoundException;
+import com.torresj.unseenusers.jobs.UserDeletionJobs;
+import com.torresj.unseenusers.mappers.CursorMapper;
+import com.torresj.unseenusers.mappers.CursorMapper.UserCursor;
+import com.torresj.unseenusers.mappers.ETagMapper;
 import com.torresj.unseenusers.mappers.PageMapper;
 import com.torresj.unseenusers.mappers.UserMapper;
+import com.torresj.unseenusers.outbox.UserChangeOutbox;
+import com.torresj.unseenusers.passwords.PasswordHasher;
+import com.torresj.unseenusers.repositories.mutations.UserDeletionMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserReadMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserUpdateMutationRepository;
+import com.torresj.unseenusers.repositories.queries.UserBatchQueryRepository;
+import com.torresj.unseenusers.repositories.queries.UserKeysetQueryRepository;
+import com.torresj.unseenusers.repositories.queries.UserVersionView;
+import com.torresj.unseenusers.repositories.queries.UserView;
+import com.torresj.unseenusers.repositories.queries.UserViewQueryRepository;
+import com.torresj.unseenusers.routing.ReadRouter;
+import com.torresj.unseenusers.search.UserSearchIndex;
+import io.micrometer.core.annotation.Timed;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @Slf4j
+@Timed(value = "users.service", histogram = true)
 @RequiredArgsConstructor
 public class UserService {
   private final UserQueryRepository userQueryRepository;
   private final UserMutationRepository userMutationRepository;
-  private final UserGroupRelationMutationRepository userGroupRelationMutationRepository;
-  private final UserGroupRelationQueryRepository userGroupRelationQueryRepository;
-  private final PairQueryRepository pairQueryRepository;
-  private final PairMutationRepository pairMutationRepository;
-  private final GroupQueryRepository groupQueryRepository;
-  private final GroupMutationRepository groupMutationRepository;
-  private final IterationQueryRepository iterationQueryRepository;
-  private final IterationMutationRepository iterationMutationRepository;
+  private final UserDeletionMutationRepository userDeletionMutationRepository;
   private final PageMapper pageMapper;
   private final UserMapper userMapper;
+  private final UserCache userCache;
+  private final UserKeysetQueryRepository userKeysetQueryRepository;
+  private final CursorMapper cursorMapper;
+  private final UserBatchQueryRepository userBatchQueryRepository;
+  private final UserLoginBuffer userLoginBuffer;
+  private final UserEmailFilter userEmailFilter;
+  private final UserViewQueryRepository userViewQueryRepository;
+  private final UserSearchIndex userSearchIndex;
+  private final ETagMapper eTagMapper;
+  private final ReadRouter readRouter;
+  private final UserReadMutationRepository userReadMutationRepository;
+  private final SingleFlight<Long, UserDto> usersByIdFlight;
+  private final SingleFlight<String, UserDto> usersByEmailFlight;
+  private final SingleFlight<UsersQuery, PageUserDto> usersPageFlight;
+  private final UserDeletionJobs userDeletionJobs;
+  private final UserChangeOutbox userChangeOutbox;
+  private final PasswordHasher passwordHasher;
+  private final UserCountCache userCountCache;
+  private final UserUpdateMutationRepository userUpdateMutationRepository;
 
   public PageUserDto users(int page, int elements, String filter, Role role) {
-    log.debug("[USER SERVICE] Getting users");
+    return users(page, elements, filter, role, TotalAccuracy.EXACT);
+  }
+
+  public PageUserDto users(
+      int page, int elements, String filter, Role role, TotalAccuracy totalAccuracy) {
+    log.debug("[USER SERVICE] Getting users with " + totalAccuracy + " totals");
+
+    // Identical queries in flight share the same DB call
+    return usersPageFlight.execute(
+        new UsersQuery(page, elements, filter, role, totalAccuracy),
+        () -> findUsers(page, elements, filter, role, totalAccuracy));
+  }
 
+  private PageUserDto findUsers(
+      int page, int elements, String filter, Role role, TotalAccuracy totalAccuracy) {
     // Create pageRequest
     var pageRequest = PageRequest.of(page, elements, Sort.by("createAt").descending());
 
-    // Create Page
-    Page<UserEntity> pageFromDB;
+    // Without exact totals the page is read as a slice, skipping the count query
+    if (totalAccuracy != TotalAccuracy.EXACT) {
+      Slice<UserView> sliceFromDB;
+      if (filter != null && role != null) {
+        sliceFromDB =
+            userViewQueryRepository.findSliceByEmailContainingIgnoreCaseAndRole(
+                filter, role, pageRequest);
+      } else if (filter == null && role != null) {
+        sliceFromDB = userViewQueryRepository.findSliceByRole(role, pageRequest);
+      } else if (filter != null) {
+        sliceFromDB =
+            userViewQueryRepository.findSliceByEmailContainingIgnoreCase(filter, pageRequest);
+      } else {
+        sliceFromDB = userViewQueryRepository.findSliceBy(pageRequest);
+      }
+      Long estimate =
+          totalAccuracy == TotalAccuracy.ESTIMATED ? userCountCache.count(filter, role) : null;
+
+      var result = pageMapper.toPageUser(sliceFromDB, estimate);
+      log.debug("[USER SERVICE] Users: " + result);
+
+      return result;
+    }
+
+    // Create Page, only the exposed columns are selected
+    Page<UserView> pageFromDB;
 
     // Check filters
     if (filter != null && role != null) {
       pageFromDB =
-          userQueryRepository.findByEmailContainingIgnoreCaseAndRole(filter, role, pageRequest);
+          userViewQueryRepository.findByEmailContainingIgnoreCaseAndRole(filter, role, pageRequest);
     } else if (filter == null && role != null) {
-      pageFromDB = userQueryRepository.findByRole(role, pageRequest);
+      pageFromDB = userViewQueryRepository.findByRole(role, pageRequest);
     } else if (filter != null) {
-      pageFromDB = userQueryRepository.findByEmailContainingIgnoreCase(filter, pageRequest);
+      pageFromDB = userViewQueryRepository.findByEmailContainingIgnoreCase(filter, pageRequest);
     } else {
-      pageFromDB = userQueryRepository.findAll(pageRequest);
+      pageFromDB = userViewQueryRepository.findAllBy(pageRequest);
     }
 
     var result = pageMapper.toPageUser(pageFromDB);
@@ -64,157 +164,609 @@ public class UserService {
     return result;
   }
 
-  public UserDto user(long id) throws UserNotFoundException {
-    log.debug("[USER SERVICE] Getting user " + id);
+  public PageUserDto search(String query, int page, int elements, Role role) {
+    log.debug("[USER SERVICE] Searching users by " + query);
 
-    // Finding user in DB
-    UserEntity userEntity =
-        userQueryRepository.findById(id).orElseThrow(() -> new UserNotFoundException(id));
+    // Ranked matches from the index, falling back to DB until it is built
+    Optional<List<Long>> matches = userSearchIndex.search(query, role);
+    if (matches.isEmpty()) {
+      log.debug("[USER SERVICE] Search index not ready, filtering users in DB");
+      return users(page, elements, query, role);
+    }
 
-    // Mapping user
-    UserDto user = userMapper.toUserDto(userEntity);
+    // Only users of the requested page are read
+    var pageRequest = PageRequest.of(page, elements);
+    List<Long> ids = matches.get();
+    int from = (int) Math.min(pageRequest.getOffset(), ids.size());
+    List<Long> pageIds = ids.subList(from, Math.min(from + elements, ids.size()));
+    Map<Long, UserDto> users = users(pageIds, List.of()).getUsers();
+
+    // Users removed by other instances may still be indexed
+    var result =
+        pageMapper.toPageUser(
+            pageIds.stream().map(users::get).filter(Objects::nonNull).toList(),
+            pageRequest,
+            ids.size());
+    log.debug("[USER SERVICE] Users: " + result);
 
-    log.debug("[USER SERVICE] User found: " + user);
+    return result;
+  }
 
-    return user;
+  public CursorPageUserDto usersByCursor(String cursor, int elements, String filter, Role role)
+      throws InvalidCursorException {
+    log.debug("[USER SERVICE] Getting users after cursor " + cursor);
+
+    // Only the page size is taken from the request, order is fixed by the keyset query
+    var pageRequest = PageRequest.of(0, elements);
+
+    // Seek from cursor position, no count query is needed
+    Slice<UserEntity> sliceFromDB;
+    if (cursor == null || cursor.isBlank()) {
+      sliceFromDB = userKeysetQueryRepository.findFirstPage(filter, role, pageRequest);
+    } else {
+      UserCursor userCursor = cursorMapper.fromCursor(cursor);
+      sliceFromDB =
+          userKeysetQueryRepository.findPageAfter(
+              userCursor.createAt(), userCursor.id(), filter, role, pageRequest);
+    }
+
+    // Next cursor points to the last user of this page
+    String nextCursor = null;
+    if (sliceFromDB.hasNext()) {
+      List<UserEntity> content = sliceFromDB.getContent();
+      nextCursor = cursorMapper.toCursor(content.get(content.size() - 1));
+    }
+
+    var result = pageMapper.toCursorPageUser(sliceFromDB, nextCursor);
+    log.debug("[USER SERVICE] Users: " + result);
+
+    return result;
+  }
+
+  public UserDto user(long id) throws UserNotFoundException {
+    log.debug("[USER SERVICE] Getting user " + id);
+    return userLoginBuffer.read(() -> userLoginBuffer.merge(storedUser(id)));
   }
 
   public UserDto user(String email) throws UserNotFoundException {
     log.debug("[USER SERVICE] Getting user " + email);
+    return userLoginBuffer.read(() -> userLoginBuffer.merge(storedUser(email)));
+  }
 
-    // Finding user in DB
-    UserEntity userEntity =
-        userQueryRepository.findByEmail(email).orElseThrow(() -> new UserNotFoundException(email));
+  public String userETag(long id) throws UserNotFoundException {
+    log.debug("[USER SERVICE] Getting version of user " + id);
+
+    // Cached user or only the version columns from DB
+    return userLoginBuffer.read(
+        () -> {
+          Optional<UserDto> cachedUser = userCache.get(id);
+          UserDto user =
+              cachedUser.isPresent()
+                  ? cachedUser.get()
+                  : toVersionUser(
+                      (readRouter.readFromPrimary(id)
+                              ? userReadMutationRepository.findVersionById(id)
+                              : userViewQueryRepository.findVersionById(id))
+                          .orElseThrow(() -> new UserNotFoundException(id)));
+          return eTagMapper.toETag(userLoginBuffer.merge(user));
+        });
+  }
 
-    // Mapping user
-    UserDto user = userMapper.toUserDto(userEntity);
+  public String userETag(String email) throws UserNotFoundException {
+    log.debug("[USER SERVICE] Getting version of user " + email);
+
+    // Cached user or only the version columns from DB
+    return userLoginBuffer.read(
+        () -> {
+          Optional<UserDto> cachedUser = userCache.get(email);
+          UserDto user =
+              cachedUser.isPresent()
+                  ? cachedUser.get()
+                  : toVersionUser(
+                      (readRouter.readFromPrimary(email)
+                              ? userReadMutationRepository.findVersionByEmail(email)
+                              : userViewQueryRepository.findVersionByEmail(email))
+                          .orElseThrow(() -> new UserNotFoundException(email)));
+          return eTagMapper.toETag(userLoginBuffer.merge(user));
+        });
+  }
 
-    log.debug("[USER SERVICE] User found: " + user);
+  public UserBatchDto users(Collection<Long> ids, Collection<String> emails) {
+    log.debug("[USER SERVICE] Getting users " + ids + " and " + emails);
 
-    return user;
+    var result = userLoginBuffer.read(() -> findUsers(ids, emails));
+    log.debug("[USER SERVICE] Users: " + result);
+
+    return result;
   }
 
-  public UserDto register(UserRegisterDto userRegister) throws UserAlreadyExistsException {
+  // Cached users first, then the rest from DB, with the logins not flushed yet
+  private UserBatchDto findUsers(Collection<Long> ids, Collection<String> emails) {
+    Map<Long, UserDto> users = new LinkedHashMap<>();
+    Set<Long> missingIds = new LinkedHashSet<>();
+    // Emails are matched ignoring case, keyed by the normalized email to the requested one
+    Map<String, String> missingEmails = new LinkedHashMap<>();
+
+    // Finding users in cache
+    ids.forEach(
+        id ->
+            userCache
+                .get(id)
+                .ifPresentOrElse(user -> users.put(id, user), () -> missingIds.add(id)));
+    emails.forEach(
+        email ->
+            userCache
+                .get(email)
+                .ifPresentOrElse(
+                    user -> users.put(user.getId(), user),
+                    () -> missingEmails.putIfAbsent(normalizeEmail(email), email)));
+
+    // Finding the rest of users in DB, one query per key type and datasource
+    if (!missingIds.isEmpty()) {
+      findUsersById(missingIds).stream()
+          .map(userMapper::toUserDto)
+          .forEach(
+              user -> {
+                userCache.put(user);
+                users.put(user.getId(), user);
+                missingIds.remove(user.getId());
+              });
+    }
+    if (!missingEmails.isEmpty()) {
+      findUsersByEmail(missingEmails.values()).stream()
+          .map(userMapper::toUserDto)
+          .forEach(
+              user -> {
+                userCache.put(user);
+                users.put(user.getId(), user);
+                missingEmails.remove(normalizeEmail(user.getEmail()));
+              });
+    }
+
+    // Logins not flushed yet
+    users.replaceAll((id, user) -> userLoginBuffer.merge(user));
+
+    return UserBatchDto.builder()
+        .users(users)
+        .notFound(new ArrayList<>(missingIds))
+        .emailsNotFound(new ArrayList<>(missingEmails.values()))
+        .build();
+  }
+
+  public UserDto login(long id) throws UserNotFoundException {
+    log.debug("[USER SERVICE] Recording login of user " + id);
+
+    // Checking user exists, usually served from cache
+    user(id);
+
+    // Login is written to DB in the next flush
+    userLoginBuffer.record(id, LocalDateTime.now());
+
+    return user(id);
+  }
+
+  public boolean isEmailAvailable(String email) {
+    log.debug("[USER SERVICE] Checking email " + email);
+
+    // Emails missing from the filter are not registered, best effort for emails registered by
+    // other instances since the last rebuild
+    if (!userEmailFilter.mightContain(email)) {
+      log.debug("[USER SERVICE] Email " + email + " not found in filter");
+      return true;
+    }
+
+    // Confirming in cache and DB
+    boolean available =
+        userCache.get(email).isEmpty() && userQueryRepository.findByEmail(email).isEmpty();
+    log.debug("[USER SERVICE] Email " + email + " available: " + available);
+
+    return available;
+  }
+
+  public UserDto register(UserRegisterDto userRegister)
+      throws UserAlreadyExistsException, PasswordHashingRejectedException {
     log.debug("[USER SERVICE] Saving user " + userRegister.email());
 
-    // Finding user in DB
-    if (userQueryRepository.findByEmail(userRegister.email()).isPresent())
+    // Finding user in DB, emails missing from the filter are not registered
+    if (userEmailFilter.mightContain(userRegister.email())
+        && userQueryRepository.findByEmail(userRegister.email()).isPresent())
       throw new UserAlreadyExistsException(userRegister.email());
 
-    // Creating user Entity
+    // Creating user Entity with its password hashed
     UserEntity userEntity =
         UserEntity.builder()
             .email(userRegister.email())
             .name(userRegister.name())
-            .password(userRegister.password())
+            .password(passwordHasher.hash(userRegister.password()))
             .role(Role.USER)
             .provider(AuthProvider.UNSEEN)
             .build();
 
-    // Saving entity
-    UserEntity userEntityFromDB = userMutationRepository.save(userEntity);
+    // Saving entity, the filter may miss emails registered by other instances
+    UserEntity userEntityFromDB;
+    try {
+      userEntityFromDB =
+          userChangeOutbox.write(
+              UserChangeType.REGISTERED, () -> userMutationRepository.save(userEntity));
+    } catch (DataIntegrityViolationException exception) {
+      if (userReadMutationRepository.findByEmail(userRegister.email()).isPresent())
+        throw new UserAlreadyExistsException(userRegister.email());
+      throw exception;
+    }
 
     // Mapping to User
     UserDto user = userMapper.toUserDto(userEntityFromDB);
+    userCache.evict(user.getEmail());
+    userEmailFilter.put(user.getEmail());
+    userSearchIndex.put(user.getId(), user.getEmail(), user.getName(), user.getRole());
+    userCountCache.added(user.getEmail(), user.getRole());
+    readRouter.recordWrite(user.getId(), user.getEmail(), user.getUpdateAt());
 
     log.debug("[USER SERVICE] User created: " + user);
 
     return user;
   }
 
-  public UserDto update(long id, UpdateUserDto updateUserDto) throws UserNotFoundException {
+  public List<UserRegisterResultDto> register(List<UserRegisterDto> usersRegister)
+      throws PasswordHashingRejectedException {
+    log.debug("[USER SERVICE] Saving " + usersRegister.size() + " users");
+
+    // Finding existing users in primary with a single query, the replica may miss recent ones
+    Set<String> existingEmails = new HashSet<>();
+    userReadMutationRepository
+        .findByEmailIn(usersRegister.stream().map(UserRegisterDto::email).toList())
+        .forEach(userEntity -> existingEmails.add(normalizeEmail(userEntity.getEmail())));
+
+    // Results of new users, repeated emails in the same request are rejected as well
+    List<UserRegisterResultDto> results = new ArrayList<>();
+    List<UserRegisterDto> newUsers = new ArrayList<>();
+    List<UserRegisterResultDto> newResults = new ArrayList<>();
+    for (UserRegisterDto userRegister : usersRegister) {
+      boolean created = existingEmails.add(normalizeEmail(userRegister.email()));
+      UserRegisterResultDto result =
+          UserRegisterResultDto.builder()
+              .email(userRegister.email())
+              .status(created ? RegisterStatus.CREATED : RegisterStatus.ALREADY_EXISTS)
+              .build();
+      results.add(result);
+      if (created) {
+        newUsers.add(userRegister);
+        newResults.add(result);
+      }
+    }
+
+    // Hashing passwords of new users in parallel
+    List<String> passwords =
+        passwordHasher.hash(newUsers.stream().map(UserRegisterDto::password).toList());
+
+    // Saving entities, users registered meanwhile by other instances fail the whole batch
+    List<UserEntity> userEntitiesFromDB;
+    try {
+      userEntitiesFromDB = insertUsers(newUsers, passwords);
+    } catch (DataIntegrityViolationException exception) {
+      Set<String> registeredEmails = new HashSet<>();
+      userReadMutationRepository
+          .findByEmailIn(newUsers.stream().map(UserRegisterDto::email).toList())
+          .forEach(userEntity -> registeredEmails.add(normalizeEmail(userEntity.getEmail())));
+      if (registeredEmails.isEmpty()) throw exception;
+
+      // Retrying once without them
+      log.debug("[USER SERVICE] Users registered meanwhile: " + registeredEmails);
+      List<UserRegisterDto> remainingUsers = new ArrayList<>();
+      List<UserRegisterResultDto> remainingResults = new ArrayList<>();
+      List<String> remainingPasswords = new ArrayList<>();
+      for (int i = 0; i < newUsers.size(); i++) {
+        if (registeredEmails.contains(normalizeEmail(newUsers.get(i).email()))) {
+          newResults.get(i).setStatus(RegisterStatus.ALREADY_EXISTS);
+          continue;
+        }
+        remainingUsers.add(newUsers.get(i));
+        remainingResults.add(newResults.get(i));
+        remainingPasswords.add(passwords.get(i));
+      }
+      newResults = remainingResults;
+      userEntitiesFromDB = insertUsers(remainingUsers, remainingPasswords);
+    }
+
+    // Caches and indexes only see committed users
+    for (int i = 0; i < userEntitiesFromDB.size(); i++) {
+      UserEntity userEntityFromDB = userEntitiesFromDB.get(i);
+      newResults.get(i).setId(userEntityFromDB.getId());
+      afterCommit(
+          () -> {
+            userCache.evict(userEntityFromDB.getEmail());
+            userEmailFilter.put(userEntityFromDB.getEmail());
+            userSearchIndex.put(
+                userEntityFromDB.getId(),
+                userEntityFromDB.getEmail(),
+                userEntityFromDB.getName(),
+                userEntityFromDB.getRole());
+            userCountCache.added(userEntityFromDB.getEmail(), userEntityFromDB.getRole());
+            readRouter.recordWrite(
+                userEntityFromDB.getId(),
+                userEntityFromDB.getEmail(),
+                userEntityFromDB.getUpdateAt());
+          });
+    }
+
+    log.debug("[USER SERVICE] Users created: " + results);
+
+    return results;
+  }
+
+  // Inserts are sent in JDBC batches and flushed, so duplicates fail here
+  private List<UserEntity> insertUsers(
+      List<UserRegisterDto> usersRegister, List<String> passwords) {
+    if (usersRegister.isEmpty()) return List.of();
+    List<UserEntity> userEntities = new ArrayList<>();
+    for (int i = 0; i < usersRegister.size(); i++) {
+      userEntities.add(
+          UserEntity.builder()
+              .email(usersRegister.get(i).email())
+              .name(usersRegister.get(i).name())
+              .password(passwords.get(i))
+              .role(Role.USER)
+              .provider(AuthProvider.UNSEEN)
+              .build());
+    }
+    return userChangeOutbox.writeAll(
+        UserChangeType.REGISTERED, () -> userMutationRepository.saveAllAndFlush(userEntities));
+  }
+
+  public UserDto update(long id, UpdateUserDto updateUserDto)
+      throws UserNotFoundException, PasswordHashingRejectedException {
     log.debug("[USER SERVICE] Updating user " + id + " " + updateUserDto);
 
-    // Finding user in DB
+    // Hashing new password first, a rejected hash leaves the user untouched
+    String password =
+        updateUserDto.getPassword() == null || updateUserDto.getPassword().isBlank()
+            ? null
+            : passwordHasher.hash(updateUserDto.getPassword());
+
+    // Finding user in primary, the replica may not have a recent update yet
     UserEntity userEntity =
-        userQueryRepository.findById(id).orElseThrow(() -> new UserNotFoundException(id));
+        userReadMutationRepository.findById(id).orElseThrow(() -> new UserNotFoundException(id));
+    Role previousRole = userEntity.getRole();
 
-    // Updating user
-    userEntity.setName(
+    // Only changed columns are written, logins flushed meanwhile are kept
+    String name =
         updateUserDto.getName() == null || updateUserDto.getName().isBlank()
-            ? userEntity.getName()
-            : updateUserDto.getName());
-    userEntity.setPassword(
-        updateUserDto.getPassword() == null || updateUserDto.getPassword().isBlank()
-            ? userEntity.getPassword()
-            : updateUserDto.getPassword());
-    userEntity.setRole(
-        updateUserDto.getRole() == null ? userEntity.getRole() : updateUserDto.getRole());
-    userEntity.setValidated(userEntity.isValidated() || updateUserDto.isValidated());
+            ? null
+            : updateUserDto.getName();
+    UserEntity userEntityFromDB =
+        userChangeOutbox.write(
+            UserChangeType.UPDATED,
+            () -> {
+              int updated =
+                  userUpdateMutationRepository.update(
+                      id,
+                      name,
+                      password,
+                      updateUserDto.getRole(),
+                      updateUserDto.isValidated(),
+                      LocalDateTime.now());
+              return updated == 0 ? null : userReadMutationRepository.findById(id).orElse(null);
+            });
 
-    // Saving entity
-    UserEntity userEntityFromDB = userMutationRepository.save(userEntity);
+    // Deleted meanwhile
+    if (userEntityFromDB == null) throw new UserNotFoundException(id);
 
     // Mapping to User
     UserDto user = userMapper.toUserDto(userEntityFromDB);
+    userCache.evict(id);
+    userCache.evict(user.getEmail());
+    userSearchIndex.put(id, user.getEmail(), user.getName(), user.getRole());
+    if (previousRole != user.getRole()) {
+      userCountCache.removed(user.getEmail(), previousRole);
+      userCountCache.added(user.getEmail(), user.getRole());
+    }
+    readRouter.recordWrite(id, user.getEmail(), user.getUpdateAt());
 
     log.debug("[USER SERVICE] User updated: " + user);
 
     return user;
   }
 
-  public void delete(long id)throws UserNotFoundException {
+  @Transactional
+  public UserDeletionDto delete(long id) throws UserNotFoundException {
     log.debug("[USER SERVICE] deleting user " + id);
-    userQueryRepository.findById(id).orElseThrow(() -> new UserNotFoundException(id));
-    userMutationRepository.deleteById(id);
+    deleteUser(id);
 
     log.debug("[USER SERVICE] deleting any relation between groups and user " + id);
-    userGroupRelationMutationRepository.deleteAll(
-        userGroupRelationQueryRepository.findByUserId(id));
+    int groupRelations = userDeletionMutationRepository.deleteGroupRelations(id);
 
     log.debug("[USER SERVICE] updating any pair that contains user " + id);
-    pairQueryRepository
-        .findByGiftingUserIdOrGiftedUserId(id, id)
-        .forEach(
-            pairEntity -> {
-              if (pairEntity.getGiftingUserId() == id) {
-                pairMutationRepository.save(
-                    PairEntity.builder()
-                        .id(pairEntity.getId())
-                        .iterationId(pairEntity.getIterationId())
-                        .giftingUserId(-1L)
-                        .giftedUserId(pairEntity.getGiftedUserId())
-                        .createAt(pairEntity.getCreateAt())
-                        .build());
-              }
-              if (pairEntity.getGiftedUserId() == id) {
-                pairMutationRepository.save(
-                    PairEntity.builder()
-                        .id(pairEntity.getId())
-                        .iterationId(pairEntity.getIterationId())
-                        .giftingUserId(pairEntity.getGiftingUserId())
-                        .giftedUserId(-1L)
-                        .createAt(pairEntity.getCreateAt())
-                        .build());
-              }
-            });
+    int giftingPairs = userDeletionMutationRepository.unlinkGiftingPairs(id);
+    int giftedPairs = userDeletionMutationRepository.unlinkGiftedPairs(id);
 
     log.debug("[USER SERVICE] updating any group that is own by user " + id);
-    groupQueryRepository
-        .findByOwner(id)
-        .forEach(
-            groupEntity -> {
-              List<UserEntity> groupUsers =
-                  userGroupRelationQueryRepository.findByGroupId(groupEntity.getId()).stream()
-                      .map(
-                          userGroupRelationEntity ->
-                              userQueryRepository.findById(userGroupRelationEntity.getUserId()))
-                      .filter(Optional::isPresent)
-                      .map(Optional::get)
-                      .toList();
-              if (!groupUsers.isEmpty()) {
-                groupEntity.setOwner(groupUsers.get(0).getId());
-                groupMutationRepository.save(groupEntity);
-              } else {
-                groupMutationRepository.delete(groupEntity);
-                List<IterationEntity> iterations =
-                    iterationQueryRepository.findByGroupId(groupEntity.getId());
-                iterationMutationRepository.deleteAll(iterations);
-                iterations.forEach(
-                    iterationEntity ->
-                        pairMutationRepository.deleteAll(
-                            pairQueryRepository.findByIterationId(iterationEntity.getId())));
-              }
-            });
+    int groupsReassigned = userDeletionMutationRepository.reassignOwnedGroups(id);
+
+    // Groups still owned by the user have no members left
+    int pairsDeleted = userDeletionMutationRepository.deleteOwnedGroupPairs(id);
+    int iterationsDeleted = userDeletionMutationRepository.deleteOwnedGroupIterations(id);
+    int groupsDeleted = userDeletionMutationRepository.deleteOwnedGroups(id);
+
+    var result =
+        UserDeletionDto.builder()
+            .id(id)
+            .groupRelations(groupRelations)
+            .giftingPairs(giftingPairs)
+            .giftedPairs(giftedPairs)
+            .groupsReassigned(groupsReassigned)
+            .groupsDeleted(groupsDeleted)
+            .iterationsDeleted(iterationsDeleted)
+            .pairsDeleted(pairsDeleted)
+            .build();
+    log.debug("[USER SERVICE] User deleted: " + result);
+
+    return result;
+  }
+
+  /**
+   * Deletes the user and leaves the cascade to a background job, so users with big histories do
+   * not hold the request while their groups and pairs are processed.
+   */
+  @Transactional
+  public UserDeletionJobDto deleteAsync(long id) throws UserNotFoundException {
+    log.debug("[USER SERVICE] deleting user " + id + " in background");
+    deleteUser(id);
+    UserDeletionJobDto job = userDeletionJobs.create(id);
+    afterCommit(() -> userDeletionJobs.submit(job.getId()));
+
+    log.debug("[USER SERVICE] User deletion job created: " + job);
+    return job;
+  }
+
+  public UserDeletionJobDto deletionJob(long jobId) throws UserDeletionJobNotFoundException {
+    log.debug("[USER SERVICE] Getting user deletion job " + jobId);
+    return userDeletionJobs
+        .job(jobId)
+        .orElseThrow(() -> new UserDeletionJobNotFoundException(jobId));
+  }
+
+  private void deleteUser(long id) throws UserNotFoundException {
+    UserEntity userEntity = findUser(id).orElseThrow(() -> new UserNotFoundException(id));
+    userDeletionMutationRepository.deleteUser(id);
+    userChangeOutbox.record(UserChangeType.DELETED, userEntity);
+
+    // Removing the email before commit could report it as available after a rollback. Evicting
+    // before the delete is recorded would let a replica read cache the user again
+    afterCommit(
+        () -> {
+          userEmailFilter.remove(userEntity.getEmail());
+          userSearchIndex.remove(id);
+          userCountCache.removed(userEntity.getEmail(), userEntity.getRole());
+          readRouter.recordDelete(id, userEntity.getEmail());
+          userCache.evict(id);
+          userCache.evict(userEntity.getEmail());
+        });
+  }
+
+  private UserDto storedUser(long id) throws UserNotFoundException {
+    // Finding user in cache
+    Optional<UserDto> cachedUser = userCache.get(id);
+    if (cachedUser.isPresent()) {
+      log.debug("[USER SERVICE] User found in cache: " + cachedUser.get());
+      return cachedUser.get();
+    }
+
+    // Finding user in DB, concurrent replica lookups of the same user share the call. Primary ones
+    // are not shared, so a read-your-writes caller never joins a replica lookup in flight
+    UserDto user =
+        readRouter.readFromPrimary(id)
+            ? loadUser(id, true)
+            : usersByIdFlight.execute(id, () -> loadUser(id, false));
+
+    log.debug("[USER SERVICE] User found: " + user);
+    return user;
   }
+
+  // Replica unless the user was written recently or it is lagging behind
+  private UserDto loadUser(long id, boolean fromPrimary) throws UserNotFoundException {
+    UserEntity userEntity =
+        (fromPrimary ? userReadMutationRepository.findById(id) : userQueryRepository.findById(id))
+            .orElseThrow(() -> new UserNotFoundException(id));
+    UserDto user = userMapper.toUserDto(userEntity);
+
+    // A replica lookup started before a write must not cache the previous version
+    if (fromPrimary || !readRouter.writtenRecently(id)) userCache.put(user);
+    return user;
+  }
+
+  private UserDto loadUser(String email, boolean fromPrimary) throws UserNotFoundException {
+    UserEntity userEntity =
+        (fromPrimary
+                ? userReadMutationRepository.findByEmail(email)
+                : userQueryRepository.findByEmail(email))
+            .orElseThrow(() -> new UserNotFoundException(email));
+    UserDto user = userMapper.toUserDto(userEntity);
+
+    // A replica lookup started before a write must not cache the previous version
+    if (fromPrimary || !readRouter.writtenRecently(email)) userCache.put(user);
+    return user;
+  }
+
+  private UserDto storedUser(String email) throws UserNotFoundException {
+    // Finding user in cache
+    Optional<UserDto> cachedUser = userCache.get(email);
+    if (cachedUser.isPresent()) {
+      log.debug("[USER SERVICE] User found in cache: " + cachedUser.get());
+      return cachedUser.get();
+    }
+
+    // Finding user in DB, concurrent replica lookups of the same user share the call. Primary ones
+    // are not shared, so a read-your-writes caller never joins a replica lookup in flight
+    UserDto user =
+        readRouter.readFromPrimary(email)
+            ? loadUser(email, true)
+            : usersByEmailFlight.execute(email, () -> loadUser(email, false));
+
+    log.debug("[USER SERVICE] User found: " + user);
+    return user;
+  }
+
+  private Optional<UserEntity> findUser(long id) {
+    return readRouter.readFromPrimary(id)
+        ? userReadMutationRepository.findById(id)
+        : userQueryRepository.findById(id);
+  }
+
+  // Keys written recently are read from primary, the rest from replica
+  private List<UserEntity> findUsersById(Collection<Long> ids) {
+    Map<Boolean, List<Long>> fromPrimary =
+        ids.stream().collect(Collectors.partitioningBy(readRouter::readFromPrimary));
+    List<UserEntity> users = new ArrayList<>();
+    if (!fromPrimary.get(true).isEmpty())
+      users.addAll(userReadMutationRepository.findByIdIn(fromPrimary.get(true)));
+    if (!fromPrimary.get(false).isEmpty())
+      users.addAll(userBatchQueryRepository.findByIdIn(fromPrimary.get(false)));
+    return users;
+  }
+
+  // Lowercase emails are looked up too, for databases comparing them case-sensitively
+  private List<UserEntity> findUsersByEmail(Collection<String> emails) {
+    Map<Boolean, List<String>> fromPrimary =
+        emails.stream()
+            .flatMap(email -> Stream.of(email, normalizeEmail(email)))
+            .distinct()
+            .collect(Collectors.partitioningBy(readRouter::readFromPrimary));
+    List<UserEntity> users = new ArrayList<>();
+    if (!fromPrimary.get(true).isEmpty())
+      users.addAll(userReadMutationRepository.findByEmailIn(fromPrimary.get(true)));
+    if (!fromPrimary.get(false).isEmpty())
+      users.addAll(userBatchQueryRepository.findByEmailIn(fromPrimary.get(false)));
+    return users;
+  }
+
+  private static String normalizeEmail(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  private static UserDto toVersionUser(UserVersionView version) {
+    return UserDto.builder()
+        .id(version.getId())
+        .updateAt(version.getUpdateAt())
+        .numLogins(version.getNumLogins())
+        .lastConnection(version.getLastConnection())
+        .build();
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+
+  /** Key of a users page query. */
+  public record UsersQuery(
+      int page, int elements, String filter, Role role, TotalAccuracy totalAccuracy) {}
 }
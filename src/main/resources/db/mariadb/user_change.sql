@@ -0,0 +1,20 @@
+-- Outbox of user mutations served by the change feed, see UserChangeEntity
+create table if not exists user_change (
+  sequence bigint not null,
+  create_at datetime,
+  user_id bigint not null,
+  email varchar(255),
+  type varchar(255),
+  primary key (sequence)
+) engine=InnoDB;
+
+create index if not exists idx_user_change_create_at on user_change (create_at);
+
+-- Last sequence assigned to a change, a single row, see UserChangeSequenceEntity
+create table if not exists user_change_sequence (
+  id integer not null,
+  last_sequence bigint not null,
+  primary key (id)
+) engine=InnoDB;
+
+insert ignore into user_change_sequence (id, last_sequence) values (1, 0);
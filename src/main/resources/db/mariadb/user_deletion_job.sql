@@ -0,0 +1,19 @@
+-- Progress of the cascade of deleted users, see UserDeletionJobEntity
+create table if not exists user_deletion_job (
+  id bigint not null auto_increment,
+  create_at datetime,
+  update_at datetime,
+  user_id bigint not null,
+  step varchar(255),
+  group_relations integer not null,
+  gifting_pairs integer not null,
+  gifted_pairs integer not null,
+  groups_reassigned integer not null,
+  groups_deleted integer not null,
+  iterations_deleted integer not null,
+  pairs_deleted integer not null,
+  version bigint not null,
+  primary key (id)
+) engine=InnoDB;
+
+create index if not exists idx_user_deletion_job_step on user_deletion_job (step);
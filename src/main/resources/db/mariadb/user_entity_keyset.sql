@@ -0,0 +1,3 @@
+-- Seek index of the keyset pagination of users, see UserKeysetQueryRepository. Pages are read in
+-- index order from the last key instead of sorting the whole table on every page
+create index if not exists idx_user_entity_create_at_id on user_entity (create_at, id);
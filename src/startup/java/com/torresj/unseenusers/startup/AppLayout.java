@@ -0,0 +1,60 @@
+package com.torresj.unseenusers.startup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The service laid out as Jib does in packaged mode under {@code /app}: the jar in {@code
+ * classpath}, dependencies in {@code libs} and every file modified one second after the epoch.
+ *
+ * <p>A CDS archive only matches the jars it was created from, by path, size and modification time.
+ * The classpath is relative, so a run with {@code /app} as working directory matches a training
+ * run made here.
+ */
+record AppLayout(Path root, String classpath) {
+
+  static final String MAIN_CLASS = "com.torresj.unseenusers.UnseenUsersApplication";
+
+  private static final FileTime JIB_MODIFICATION_TIME = FileTime.fromMillis(1000);
+
+  static AppLayout create(Path root, Path jar, List<Path> dependencies) throws IOException {
+    delete(root.resolve("classpath"));
+    delete(root.resolve("libs"));
+    List<String> classpath = new ArrayList<>();
+
+    // Jib uses the jar from before the Spring Boot repackaging
+    String jarName = jar.getFileName().toString().replaceAll("\\.jar\\.original$", "");
+    classpath.add(copy(jar, root, "classpath/" + jarName + ".original.jar"));
+    for (Path dependency : dependencies)
+      classpath.add(copy(dependency, root, "libs/" + dependency.getFileName()));
+
+    return new AppLayout(root, String.join(":", classpath));
+  }
+
+  Path resolve(String path) {
+    return root.resolve(path);
+  }
+
+  private static String copy(Path file, Path root, String path) throws IOException {
+    Path target = root.resolve(path);
+    Files.createDirectories(target.getParent());
+    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+    Files.setLastModifiedTime(target, JIB_MODIFICATION_TIME);
+    return path;
+  }
+
+  // Jars of a previous build would stay on the classpath otherwise
+  private static void delete(Path directory) throws IOException {
+    if (!Files.exists(directory)) return;
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.torresj.unseenusers.startup;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The service started in its own process, with the production configuration (two datasources,
+ * Spring Cloud Config) against an in-memory H2 database, so no other service is needed.
+ *
+ * <p>Ready means the readiness probe answers 200, as for Kubernetes. The process is stopped with
+ * SIGTERM, so the JVM runs its exit hooks, which is when a CDS archive is written.
+ */
+final class AppProcess implements AutoCloseable {
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+
+  private final Process process;
+  private final long startNanos;
+  private final String baseUrl;
+  private final HttpClient client =
+      HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+  private AppProcess(Process process, long startNanos, int port) {
+    this.process = process;
+    this.startNanos = startNanos;
+    this.baseUrl = "http://localhost:" + port;
+  }
+
+  /** Runs {@code command} followed by the service arguments, logging to {@code log}. */
+  static AppProcess start(List<String> command, Path workingDirectory, Path log)
+      throws IOException {
+    int port = freePort();
+    List<String> arguments = new ArrayList<>(command);
+    arguments.add("--server.port=" + port);
+    arguments.add("--grpc.port=0");
+    arguments.add("--spring.datasource.queries.url=jdbc:h2:mem:startup");
+    arguments.add("--spring.datasource.mutations.url=jdbc:h2:mem:startup");
+    arguments.add("--spring.jpa.properties.hibernate.hbm2ddl.auto=create");
+    // Console only, the production configuration writes to /unseen-users/logs
+    arguments.add("--logging.config=classpath:logback-spring-local.xml");
+    arguments.add("--logging.level.com.torresj=info");
+
+    Files.createDirectories(log.getParent());
+    long startNanos = System.nanoTime();
+    Process process =
+        new ProcessBuilder(arguments)
+            .directory(workingDirectory.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+    return new AppProcess(process, startNanos, port);
+  }
+
+  /** Time from the start of the process until the service is ready. */
+  Duration awaitReady(Duration timeout) throws IOException, InterruptedException {
+    HttpRequest readiness =
+        HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness")).build();
+    long deadline = startNanos + timeout.toNanos();
+    while (System.nanoTime() < deadline) {
+      if (!process.isAlive())
+        throw new IllegalStateException("Service exited with code " + process.exitValue());
+      try {
+        if (client.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+          return Duration.ofNanos(System.nanoTime() - startNanos);
+      } catch (ConnectException e) {
+        // Not listening yet
+      }
+      Thread.sleep(POLL_INTERVAL.toMillis());
+    }
+    throw new IllegalStateException("Service was not ready after " + timeout);
+  }
+
+  /** Status code of a GET request to {@code path}. */
+  int get(String path) throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).build();
+    return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+
+  /** Resident memory of the process in bytes, read from {@code /proc} so only on Linux. */
+  long residentMemory() throws IOException {
+    for (String line : Files.readAllLines(Path.of("/proc", process.pid() + "", "status"))) {
+      if (line.startsWith("VmRSS:"))
+        return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+    }
+    throw new IllegalStateException("No VmRSS in the status of process " + process.pid());
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    process.destroy();
+    if (!process.waitFor(1, TimeUnit.MINUTES)) process.destroyForcibly().waitFor();
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.torresj.unseenusers.startup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the class data sharing archive of the image: starts the service once from the Jib
+ * layout, sends it a few requests and stops it, the JVM writing every class it loaded to {@code
+ * cds/app.jsa}. Later starts map those classes from the archive instead of loading, verifying and
+ * linking them again.
+ *
+ * <p>The image starts with {@code java @cds/jvm.args}, the same flags and classpath as the
+ * training run. The archive only works with the JDK build it was created with, otherwise the JVM
+ * warns and starts without it.
+ */
+public class CdsTraining {
+
+  static final String ARCHIVE = "cds/app.jsa";
+  static final String JVM_ARGS = "cds/jvm.args";
+
+  // Loads the classes of the first requests too: MVC, Jackson, JPA queries
+  private static final List<String> TRAINING_REQUESTS =
+      List.of("/v1/users?page=0&elements=10", "/v1/users/1", "/actuator/health");
+
+  public static void main(String[] args) throws Exception {
+    StartupOptions options = StartupOptions.parse(args);
+    System.out.printf("Laying out %s in %s%n", options.jar().getFileName(), options.layout());
+    AppLayout layout = AppLayout.create(options.layout(), options.jar(), options.dependencies());
+
+    train(layout, options.aot(), options.timeout());
+    List<String> jvmArgs = new ArrayList<>(jvmFlags(options.aot(), true));
+    jvmArgs.addAll(List.of("-cp", layout.classpath(), AppLayout.MAIN_CLASS));
+    Files.write(layout.resolve(JVM_ARGS), jvmArgs);
+    System.out.printf(
+        "Created %s, %d MB%n", ARCHIVE, Files.size(layout.resolve(ARCHIVE)) / (1024 * 1024));
+  }
+
+  /** Runs the service from {@code layout} and writes its classes to the archive on exit. */
+  static void train(AppLayout layout, boolean aot, Duration timeout) throws Exception {
+    Path archive = layout.resolve(ARCHIVE);
+    Files.createDirectories(archive.getParent());
+    Files.deleteIfExists(archive);
+
+    List<String> flags = new ArrayList<>(jvmFlags(aot, false));
+    flags.add("-XX:ArchiveClassesAtExit=" + ARCHIVE);
+    try (AppProcess app =
+        AppProcess.start(
+            java(layout, flags), layout.root(), layout.resolve("logs/cds-training.log"))) {
+      Duration ready = app.awaitReady(timeout);
+      System.out.printf("Training run ready in %d ms%n", ready.toMillis());
+      for (String path : TRAINING_REQUESTS) app.get(path);
+    }
+    if (!Files.exists(archive))
+      throw new IllegalStateException("The training run did not write " + ARCHIVE);
+  }
+
+  static List<String> jvmFlags(boolean aot, boolean cds) {
+    List<String> flags = new ArrayList<>();
+    if (cds) flags.add("-XX:SharedArchiveFile=" + ARCHIVE);
+    if (aot) flags.add("-Dspring.aot.enabled=true");
+    return flags;
+  }
+
+  /** Command running the service from {@code layout}, which must be the working directory. */
+  static List<String> java(AppLayout layout, List<String> flags) {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(flags);
+    command.addAll(List.of("-cp", layout.classpath(), AppLayout.MAIN_CLASS));
+    return command;
+  }
+}
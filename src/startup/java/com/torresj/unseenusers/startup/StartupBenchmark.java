@@ -0,0 +1,68 @@
+package com.torresj.unseenusers.startup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+/**
+ * Starts the service several times per variant and reports the time until it is ready and its
+ * resident memory then. Every variant runs from the same Jib layout, the CDS ones after a training
+ * run of their own. Variants whose build is missing are skipped: AOT needs the {@code aot} profile
+ * and native an executable built with the {@code native} profile.
+ */
+public class StartupBenchmark {
+
+  private static final String AOT_INITIALIZER =
+      "com/torresj/unseenusers/UnseenUsersApplication__ApplicationContextInitializer.class";
+
+  public static void main(String[] args) throws Exception {
+    StartupOptions options = StartupOptions.parse(args);
+    AppLayout layout = AppLayout.create(options.layout(), options.jar(), options.dependencies());
+    boolean aotBuild = hasAotInitializer(options);
+
+    Map<Variant, List<StartupReport.Measurement>> measurements = new LinkedHashMap<>();
+    for (Variant variant : options.variants()) {
+      if (variant.aot() && !aotBuild) {
+        System.out.printf("Skipping %s, build with -Paot%n", variant.option());
+        continue;
+      }
+      if (variant == Variant.NATIVE && !Files.isExecutable(options.nativeExecutable())) {
+        System.out.printf("Skipping native, no %s%n", options.nativeExecutable());
+        continue;
+      }
+      if (variant.cds()) CdsTraining.train(layout, variant.aot(), options.timeout());
+
+      List<StartupReport.Measurement> runs = new ArrayList<>();
+      for (int run = 0; run < options.runs(); run++) {
+        try (AppProcess app =
+            AppProcess.start(
+                command(variant, layout, options),
+                layout.root(),
+                layout.resolve("logs/" + variant.option() + "-" + run + ".log"))) {
+          Duration ready = app.awaitReady(options.timeout());
+          runs.add(new StartupReport.Measurement(ready, app.residentMemory()));
+          System.out.printf(
+              "%s run %d ready in %d ms%n", variant.option(), run + 1, ready.toMillis());
+        }
+      }
+      measurements.put(variant, runs);
+    }
+    new StartupReport(measurements).print(System.out);
+  }
+
+  private static List<String> command(Variant variant, AppLayout layout, StartupOptions options) {
+    if (variant == Variant.NATIVE) return List.of(options.nativeExecutable().toString());
+    return CdsTraining.java(layout, CdsTraining.jvmFlags(variant.aot(), variant.cds()));
+  }
+
+  private static boolean hasAotInitializer(StartupOptions options) throws IOException {
+    try (ZipFile jar = new ZipFile(options.jar().toFile())) {
+      return jar.getEntry(AOT_INITIALIZER) != null;
+    }
+  }
+}
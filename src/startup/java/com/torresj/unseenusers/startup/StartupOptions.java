@@ -0,0 +1,62 @@
+package com.torresj.unseenusers.startup;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of the CDS training and the startup benchmark, given as {@code --name=value} arguments.
+ * {@code layout}, {@code jar} and {@code classpath} are filled in by the Maven profiles.
+ */
+record StartupOptions(
+    Path layout,
+    Path jar,
+    List<Path> dependencies,
+    boolean aot,
+    Path nativeExecutable,
+    List<Variant> variants,
+    int runs,
+    Duration timeout) {
+
+  static StartupOptions parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("="))
+        throw new IllegalArgumentException("Options must be given as --name=value: " + arg);
+      values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+    }
+
+    StartupOptions options =
+        new StartupOptions(
+            Path.of(values.getOrDefault("layout", "target/startup")),
+            Path.of(required(values, "jar")),
+            parseDependencies(required(values, "classpath")),
+            Boolean.parseBoolean(values.getOrDefault("aot", "false")),
+            Path.of(values.getOrDefault("native", "target/unseen-users")),
+            Arrays.stream(values.getOrDefault("variants", "jvm,aot,cds,aot-cds,native").split(","))
+                .map(name -> Variant.byName(name.trim()))
+                .toList(),
+            Integer.parseInt(values.getOrDefault("runs", "5")),
+            Duration.parse("PT" + values.getOrDefault("timeout", "180s")));
+    if (options.runs < 1) throw new IllegalArgumentException("There must be at least one run");
+    return options;
+  }
+
+  private static String required(Map<String, String> values, String name) {
+    String value = values.get(name);
+    if (value == null) throw new IllegalArgumentException("Option --" + name + " is required");
+    return value;
+  }
+
+  // Runtime classpath of Maven, the classes directory is replaced by the jar
+  private static List<Path> parseDependencies(String classpath) {
+    return Arrays.stream(classpath.split(File.pathSeparator))
+        .map(Path::of)
+        .filter(path -> path.toString().endsWith(".jar"))
+        .toList();
+  }
+}
@@ -0,0 +1,33 @@
+package com.torresj.unseenusers.startup;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/** Time to ready and resident memory of every variant, medians over the runs. */
+record StartupReport(Map<Variant, List<Measurement>> measurements) {
+
+  record Measurement(Duration ready, long residentMemory) {}
+
+  void print(PrintStream out) {
+    out.printf(
+        "%-10s %6s %14s %14s %14s%n", "variant", "runs", "ready p50 ms", "ready min ms", "rss MB");
+    measurements.forEach(
+        (variant, runs) -> {
+          List<Long> ready = runs.stream().map(run -> run.ready().toMillis()).sorted().toList();
+          List<Long> memory = runs.stream().map(Measurement::residentMemory).sorted().toList();
+          out.printf(
+              "%-10s %6d %14d %14d %14.1f%n",
+              variant.option(),
+              runs.size(),
+              median(ready),
+              ready.get(0),
+              median(memory) / (1024.0 * 1024.0));
+        });
+  }
+
+  private static long median(List<Long> sorted) {
+    return sorted.get(sorted.size() / 2);
+  }
+}
@@ -0,0 +1,42 @@
+package com.torresj.unseenusers.startup;
+
+import java.util.Arrays;
+
+/** Ways of starting the service, compared by the startup benchmark. */
+enum Variant {
+  JVM("jvm", false, false),
+  AOT("aot", true, false),
+  CDS("cds", false, true),
+  AOT_CDS("aot-cds", true, true),
+  NATIVE("native", false, false);
+
+  private final String option;
+  private final boolean aot;
+  private final boolean cds;
+
+  Variant(String option, boolean aot, boolean cds) {
+    this.option = option;
+    this.aot = aot;
+    this.cds = cds;
+  }
+
+  String option() {
+    return option;
+  }
+
+  /** Runs the Spring AOT initializers on the JVM, needs a build of the aot profile. */
+  boolean aot() {
+    return aot;
+  }
+
+  boolean cds() {
+    return cds;
+  }
+
+  static Variant byName(String option) {
+    return Arrays.stream(values())
+        .filter(variant -> variant.option.equals(option))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("Unknown variant " + option));
+  }
+}
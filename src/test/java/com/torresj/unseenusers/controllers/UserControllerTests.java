@@ -1,19 +1,52 @@
 package com.torresj.unseenusers.controllers;
 
 import static com.torresj.unseenusers.utils.EntityGenerator.GenerateGroup;
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateIteration;
+import static com.torresj.unseenusers.utils.EntityGenerator.GeneratePair;
 import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.torresj.unseen.entities.*;
 import com.torresj.unseen.repositories.mutations.GroupMutationRepository;
+import com.torresj.unseen.repositories.mutations.IterationMutationRepository;
+import com.torresj.unseen.repositories.mutations.PairMutationRepository;
 import com.torresj.unseen.repositories.mutations.UserGroupRelationMutationRepository;
 import com.torresj.unseen.repositories.mutations.UserMutationRepository;
 import com.torresj.unseen.repositories.queries.UserQueryRepository;
+import com.torresj.unseenusers.cache.UserCache;
+import com.torresj.unseenusers.cache.UserCountCache;
+import com.torresj.unseenusers.cache.UserEmailFilter;
+import com.torresj.unseenusers.cache.UserLoginBuffer;
+import com.torresj.unseenusers.dtos.CursorPageUserDto;
+import com.torresj.unseenusers.dtos.EmailAvailabilityDto;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.TotalAccuracy;
+import com.torresj.unseenusers.dtos.RegisterStatus;
+import com.torresj.unseenusers.dtos.UserBatchDto;
+import com.torresj.unseenusers.dtos.UserChangeDto;
+import com.torresj.unseenusers.dtos.UserChangesDto;
+import com.torresj.unseenusers.dtos.UserBatchRequestDto;
 import com.torresj.unseenusers.dtos.UpdateUserDto;
+import com.torresj.unseenusers.dtos.UserDeletionDto;
+import com.torresj.unseenusers.dtos.UserDeletionJobDto;
 import com.torresj.unseenusers.dtos.UserDto;
 import com.torresj.unseenusers.dtos.UserRegisterDto;
+import com.torresj.unseenusers.entities.UserChangeType;
+import com.torresj.unseenusers.dtos.UserRegisterResultDto;
+import com.torresj.unseenusers.routing.ReadRouter;
+import com.torresj.unseenusers.search.UserSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import org.junit.jupiter.api.Assertions;
@@ -23,9 +56,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 @ActiveProfiles("test")
@@ -48,11 +83,22 @@ class UserControllerTests {
   @Autowired private UserQueryRepository userQueryRepository;
   @Autowired private GroupMutationRepository groupMutationRepository;
   @Autowired private UserGroupRelationMutationRepository userGroupRelationMutationRepository;
+  @Autowired private IterationMutationRepository iterationMutationRepository;
+  @Autowired private PairMutationRepository pairMutationRepository;
+  @Autowired private UserCache userCache;
+  @Autowired private UserCountCache userCountCache;
+  @Autowired private UserLoginBuffer userLoginBuffer;
+  @Autowired private UserEmailFilter userEmailFilter;
+  @Autowired private UserSearchIndex userSearchIndex;
+  @Autowired private MeterRegistry meterRegistry;
 
   @BeforeEach
   public void init() {
+    userLoginBuffer.flush();
     userMutationRepository.deleteAll();
     groupMutationRepository.deleteAll();
+    userCache.clear();
+    userCountCache.clear();
   }
 
   @Test
@@ -83,6 +129,237 @@ class UserControllerTests {
     Assertions.assertEquals(2, page.getContent().size());
     Assertions.assertEquals(email, page.getContent().get(1).getEmail());
     Assertions.assertEquals(email + 2, page.getContent().get(0).getEmail());
+    Assertions.assertEquals(TotalAccuracy.EXACT, page.getPageInfo().getTotalAccuracy());
+  }
+
+  @Test
+  @DisplayName("Get users without totals and with estimated totals")
+  void getUsersWithoutExactTotals() throws Exception {
+    // Create users in DB
+    userMutationRepository.save(
+        GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true));
+    userMutationRepository.save(
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Without totals
+    PageUserDto page = users("/v1/users?page=0&elements=1&includeTotal=false");
+
+    Assertions.assertEquals(TotalAccuracy.OMITTED, page.getPageInfo().getTotalAccuracy());
+    Assertions.assertEquals(-1, page.getPageInfo().getTotalElements());
+    Assertions.assertEquals(-1, page.getPageInfo().getTotalPages());
+    Assertions.assertFalse(page.getPageInfo().isLastPage());
+    Assertions.assertEquals(email + 2, page.getContent().get(0).getEmail());
+
+    // Estimated totals, the count is read once and adjusted on register
+    page = users("/v1/users?page=0&elements=1&estimateTotal=true&role=USER");
+
+    Assertions.assertEquals(TotalAccuracy.ESTIMATED, page.getPageInfo().getTotalAccuracy());
+    Assertions.assertEquals(1, page.getPageInfo().getTotalElements());
+    Assertions.assertTrue(page.getPageInfo().isLastPage());
+
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.post("/v1/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new UserRegisterDto("New", "new@test.com", password))))
+        .andExpect(status().isCreated());
+    page = users("/v1/users?page=1&elements=1&estimateTotal=true&role=USER");
+
+    Assertions.assertEquals(2, page.getPageInfo().getTotalElements());
+    Assertions.assertEquals(2, page.getPageInfo().getTotalPages());
+    Assertions.assertTrue(page.getPageInfo().isLastPage());
+  }
+
+  private PageUserDto users(String url) throws Exception {
+    var content =
+        mockMvc
+            .perform(MockMvcRequestBuilders.get(url).contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readValue(content, PageUserDto.class);
+  }
+
+  @Test
+  @DisplayName("Search users")
+  void searchUsers() throws Exception {
+    // Create users in DB
+    UserEntity prefix =
+        GenerateUser("ana.lopez@test.com", password, Role.USER, AuthProvider.UNSEEN, true);
+    prefix.setName("Lopez");
+    prefix = userMutationRepository.save(prefix);
+    UserEntity word =
+        GenerateUser("juan.ana@test.com", password, Role.USER, AuthProvider.UNSEEN, true);
+    word.setName("Juan");
+    word = userMutationRepository.save(word);
+    UserEntity substring =
+        GenerateUser("mariana@test.com", password, Role.USER, AuthProvider.UNSEEN, true);
+    substring.setName("Mariana");
+    substring = userMutationRepository.save(substring);
+    userMutationRepository.save(
+        GenerateUser("pepe@test.com", password, Role.USER, AuthProvider.UNSEEN, true));
+    userSearchIndex.rebuild();
+
+    // Search
+    PageUserDto result = search("ANA", 0);
+
+    Assertions.assertEquals(3, result.getPageInfo().getTotalElements());
+    Assertions.assertEquals(2, result.getPageInfo().getTotalPages());
+    Assertions.assertEquals(
+        List.of(prefix.getId(), word.getId()),
+        result.getContent().stream().map(UserDto::getId).toList());
+
+    result = search("ANA", 1);
+
+    Assertions.assertTrue(result.getPageInfo().isLastPage());
+    Assertions.assertEquals(
+        List.of(substring.getId()), result.getContent().stream().map(UserDto::getId).toList());
+
+    // Registered and deleted users are indexed right away
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.post("/v1/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new UserRegisterDto("New", "ana@new.com", password))))
+        .andExpect(status().isCreated());
+    mockMvc
+        .perform(MockMvcRequestBuilders.delete("/v1/users/" + prefix.getId()))
+        .andExpect(status().isOk());
+
+    result = search("ana", 0);
+
+    Assertions.assertEquals(3, result.getPageInfo().getTotalElements());
+    Assertions.assertEquals("ana@new.com", result.getContent().get(0).getEmail());
+    Assertions.assertEquals(word.getId(), result.getContent().get(1).getId());
+  }
+
+  private PageUserDto search(String query, int page) throws Exception {
+    var content =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/users/search")
+                    .param("query", query)
+                    .param("page", String.valueOf(page))
+                    .param("elements", "2"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readValue(content, PageUserDto.class);
+  }
+
+  @Test
+  @DisplayName("Get users by cursor")
+  void getUsersByCursor() throws Exception {
+    // Create valid users in DB
+    userMutationRepository.save(
+        GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true));
+    userMutationRepository.save(
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+    userMutationRepository.save(
+        GenerateUser(email + 3, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Get first page
+    var firstResult =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/users/cursor?elements=2")
+                    .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    CursorPageUserDto firstPage =
+        objectMapper.readValue(
+            firstResult.andReturn().getResponse().getContentAsString(), CursorPageUserDto.class);
+
+    // Get second page
+    var secondResult =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get(
+                        "/v1/users/cursor?elements=2&cursor="
+                            + firstPage.getPageInfo().getNextCursor())
+                    .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    CursorPageUserDto secondPage =
+        objectMapper.readValue(
+            secondResult.andReturn().getResponse().getContentAsString(), CursorPageUserDto.class);
+
+    Assertions.assertEquals(2, firstPage.getContent().size());
+    Assertions.assertEquals(email + 3, firstPage.getContent().get(0).getEmail());
+    Assertions.assertEquals(email + 2, firstPage.getContent().get(1).getEmail());
+    Assertions.assertFalse(firstPage.getPageInfo().isLastPage());
+    Assertions.assertEquals(1, secondPage.getContent().size());
+    Assertions.assertEquals(email, secondPage.getContent().get(0).getEmail());
+    Assertions.assertTrue(secondPage.getPageInfo().isLastPage());
+    Assertions.assertNull(secondPage.getPageInfo().getNextCursor());
+  }
+
+  @Test
+  @DisplayName("Get users by cursor with role")
+  void getUsersByCursorWithRole() throws Exception {
+    // Create valid users in DB
+    userMutationRepository.save(
+        GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true));
+    userMutationRepository.save(
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Get
+    var result =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/users/cursor?elements=10&role=ADMIN&filter=TEST")
+                    .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    CursorPageUserDto page =
+        objectMapper.readValue(
+            result.andReturn().getResponse().getContentAsString(), CursorPageUserDto.class);
+
+    Assertions.assertEquals(1, page.getContent().size());
+    Assertions.assertEquals(email, page.getContent().get(0).getEmail());
+    Assertions.assertTrue(page.getPageInfo().isLastPage());
+  }
+
+  @Test
+  @DisplayName("Get users by invalid cursor")
+  void getUsersByInvalidCursor() throws Exception {
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/cursor?elements=2&cursor=invalid")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Export users")
+  void exportUsers() throws Exception {
+    // Create valid users in DB
+    userMutationRepository.save(
+        GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true));
+    userMutationRepository.save(
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+    userMutationRepository.save(
+        GenerateUser("other@example.com", password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Get
+    var result =
+        mockMvc
+            .perform(MockMvcRequestBuilders.get("/v1/users/export?filter=TEST&role=USER"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+    // Result
+    var lines = result.getResponse().getContentAsString().lines().toList();
+
+    Assertions.assertEquals(
+        MediaType.APPLICATION_NDJSON_VALUE, result.getResponse().getContentType());
+    Assertions.assertEquals(1, lines.size());
+    Assertions.assertEquals(
+        email + 2, objectMapper.readValue(lines.get(0), UserDto.class).getEmail());
   }
 
   @Test
@@ -117,6 +394,341 @@ class UserControllerTests {
     Assertions.assertNull(user.getPhotoUrl());
   }
 
+  @Test
+  @DisplayName("Get user by ID and email from cached JSON")
+  void getUserCachedJson() throws Exception {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+    var hits =
+        meterRegistry
+            .get("cache.gets")
+            .tag("cache", "users-json")
+            .tag("result", "hit")
+            .functionCounter();
+    double hitsBefore = hits.count();
+
+    // Get by id, then by id and email again
+    var byId = mockMvc.perform(MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId()));
+    var cachedById =
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId()));
+    var cachedByEmail = mockMvc.perform(MockMvcRequestBuilders.get("/v1/users/me?email=" + email));
+
+    // Result, the same bytes Jackson writes
+    var content = byId.andReturn().getResponse().getContentAsString();
+    cachedById
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().string(content));
+    cachedByEmail.andExpect(status().isOk()).andExpect(content().string(content));
+    Assertions.assertEquals(
+        objectMapper.writeValueAsString(objectMapper.readValue(content, UserDto.class)), content);
+    Assertions.assertEquals(2, hits.count() - hitsBefore);
+  }
+
+  @Test
+  @DisplayName("Get user and users as Smile and CBOR")
+  void getUsersBinaryFormats() throws Exception {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+    MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+    ObjectMapper smileMapper = new ObjectMapper(new SmileFactory()).findAndRegisterModules();
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).findAndRegisterModules();
+
+    // Get user as Smile, JSON is the second choice
+    var content =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                    .header(HttpHeaders.ACCEPT, "application/json;q=0.5, " + smile))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(smile))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+    UserDto user = smileMapper.readValue(content, UserDto.class);
+
+    Assertions.assertEquals(email, user.getEmail());
+    Assertions.assertEquals(userEntity.getId(), user.getId());
+    Assertions.assertNotNull(user.getCreateAt());
+
+    // Get users as CBOR
+    content =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/users?page=0&elements=10")
+                    .accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+    PageUserDto page = cborMapper.readValue(content, PageUserDto.class);
+
+    Assertions.assertEquals(1, page.getPageInfo().getTotalElements());
+    Assertions.assertEquals(email, page.getContent().get(0).getEmail());
+    Assertions.assertEquals(
+        userEntity.getUpdateAt().withNano(0), page.getContent().get(0).getUpdateAt().withNano(0));
+  }
+
+  @Test
+  @DisplayName("Record logins")
+  void login() throws Exception {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Login
+    for (int i = 0; i < 3; i++) {
+      mockMvc
+          .perform(
+              MockMvcRequestBuilders.post("/v1/users/" + userEntity.getId() + "/login")
+                  .contentType(MediaType.APPLICATION_JSON))
+          .andExpect(status().isOk());
+    }
+
+    // Pending logins are merged in reads but not written yet
+    var content =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                    .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    UserDto user = objectMapper.readValue(content, UserDto.class);
+
+    Assertions.assertEquals(4, user.getNumLogins());
+    Assertions.assertEquals(
+        1, userQueryRepository.findById(userEntity.getId()).get().getNumLogins());
+
+    // Flush
+    Assertions.assertEquals(1, userLoginBuffer.flush());
+
+    content =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                    .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    user = objectMapper.readValue(content, UserDto.class);
+    UserEntity userEntityFromDB = userQueryRepository.findById(userEntity.getId()).get();
+
+    Assertions.assertEquals(4, user.getNumLogins());
+    Assertions.assertEquals(4, userEntityFromDB.getNumLogins());
+    Assertions.assertTrue(
+        userEntityFromDB.getLastConnection().isAfter(userEntity.getLastConnection()));
+    Assertions.assertEquals(0, userLoginBuffer.flush());
+  }
+
+  @Test
+  @DisplayName("Record login of user that not exists")
+  void loginNotFound() throws Exception {
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.post("/v1/users/" + new Random().nextLong() + "/login")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("Get user by ID not modified")
+  void getUserByIDNotModified() throws Exception {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Get
+    String eTag =
+        mockMvc
+            .perform(MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    // Same version, by id and by email, also when the user is not cached
+    userCache.clear();
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, eTag))
+        .andExpect(content().string(""));
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/me")
+                .param("email", email)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified());
+
+    // A login changes the version
+    mockMvc
+        .perform(MockMvcRequestBuilders.post("/v1/users/" + userEntity.getId() + "/login"))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+  }
+
+  @Test
+  @DisplayName("Get user by ID not modified in each format")
+  void getUserByIDNotModifiedByFormat() throws Exception {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+    MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+    // Get as JSON and as Smile, the tags differ and caches are told to key on Accept
+    String jsonETag =
+        mockMvc
+            .perform(MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    String smileETag =
+        mockMvc
+            .perform(MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId()).accept(smile))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    Assertions.assertNotEquals(jsonETag, smileETag);
+
+    // A tag only matches the format it was sent in
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                .accept(smile)
+                .header(HttpHeaders.IF_NONE_MATCH, smileETag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)));
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                .accept(smile)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(smile));
+  }
+
+  @Test
+  @DisplayName("Get user by ID in a format not served varies by Accept")
+  void getUserByIDNotAcceptableVaries() throws Exception {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Get as XML, caches must not serve this answer to other formats
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                .accept(MediaType.APPLICATION_XML))
+        .andExpect(status().isNotAcceptable())
+        .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)));
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                .accept(MediaType.APPLICATION_XML)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+        .andExpect(status().isNotAcceptable())
+        .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)));
+  }
+
+  @Test
+  @DisplayName("Get users not modified")
+  void getUsersNotModified() throws Exception {
+    // Create a valid user in DB
+    userMutationRepository.save(
+        GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Get
+    var response =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/users").param("page", "0").param("elements", "10"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andReturn()
+            .getResponse();
+
+    // Not modified since last response
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users")
+                .param("page", "0")
+                .param("elements", "10")
+                .header(
+                    HttpHeaders.IF_MODIFIED_SINCE, response.getHeader(HttpHeaders.LAST_MODIFIED)))
+        .andExpect(status().isNotModified());
+
+    // A new user in the page changes its tag
+    userMutationRepository.save(
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users")
+                .param("page", "0")
+                .param("elements", "10")
+                .header(HttpHeaders.IF_NONE_MATCH, response.getHeader(HttpHeaders.ETAG)))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  @DisplayName("Get user by ID records repository calls")
+  void getUserByIDRepositoryCalls() throws Exception {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    double queryCallsBefore = repositoryCalls("query");
+    double mutationCallsBefore = repositoryCalls("mutation");
+
+    // Get
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    Assertions.assertEquals(queryCallsBefore + 1, repositoryCalls("query"));
+    Assertions.assertEquals(mutationCallsBefore, repositoryCalls("mutation"));
+    Assertions.assertTrue(
+        meterRegistry.get("users.service").tag("method", "user").timer().count() > 0);
+  }
+
+  private double repositoryCalls(String datasource) {
+    var calls =
+        meterRegistry
+            .find("http.server.requests.repository.calls")
+            .tag("uri", "/v1/users/{id}")
+            .tag("method", "GET")
+            .tag("datasource", datasource)
+            .summary();
+    return calls == null ? 0 : calls.totalAmount();
+  }
+
   @Test
   @DisplayName("Get user by ID that not exists")
   void getUserNotFound() throws Exception {
@@ -182,6 +794,42 @@ class UserControllerTests {
     Assertions.assertEquals("User " + email + " not found", error);
   }
 
+  @Test
+  @DisplayName("Get users by ids and emails")
+  void getUsersBatch() throws Exception {
+    // Create valid users in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+    UserEntity userEntity2 =
+        userMutationRepository.save(
+            GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Batch request
+    UserBatchRequestDto userBatchRequest =
+        new UserBatchRequestDto(List.of(userEntity.getId(), -1L), List.of(email + 2));
+
+    // Post
+    var result =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.post("/v1/users/batch")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(userBatchRequest)))
+            .andExpect(status().isOk());
+
+    // Result
+    var content = result.andReturn().getResponse().getContentAsString();
+    UserBatchDto userBatch = objectMapper.readValue(content, UserBatchDto.class);
+
+    Assertions.assertEquals(2, userBatch.getUsers().size());
+    Assertions.assertEquals(email, userBatch.getUsers().get(userEntity.getId()).getEmail());
+    Assertions.assertEquals(email + 2, userBatch.getUsers().get(userEntity2.getId()).getEmail());
+    Assertions.assertEquals(List.of(-1L), userBatch.getNotFound());
+    Assertions.assertTrue(userBatch.getEmailsNotFound().isEmpty());
+  }
+
   @Test
   @DisplayName("Register new user")
   void registerUser() throws Exception {
@@ -237,6 +885,155 @@ class UserControllerTests {
         .andExpect(status().isBadRequest());
   }
 
+  @Test
+  @DisplayName("Check email availability")
+  void emailAvailability() throws Exception {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+    userEmailFilter.rebuild();
+
+    // Check registered email
+    var content =
+        mockMvc
+            .perform(MockMvcRequestBuilders.get("/v1/users/availability").param("email", email))
+            .andExpect(status().isConflict())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    EmailAvailabilityDto availability =
+        objectMapper.readValue(content, EmailAvailabilityDto.class);
+
+    Assertions.assertEquals(email, availability.getEmail());
+    Assertions.assertFalse(availability.isAvailable());
+
+    // Check email not registered
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.head("/v1/users/availability").param("email", "new@test.com"))
+        .andExpect(status().isOk());
+
+    // Register it
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.post("/v1/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new UserRegisterDto("new", "new@test.com", password))))
+        .andExpect(status().isCreated());
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.head("/v1/users/availability").param("email", "new@test.com"))
+        .andExpect(status().isConflict());
+
+    // Delete first user
+    mockMvc
+        .perform(MockMvcRequestBuilders.delete("/v1/users/" + userEntity.getId()))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.head("/v1/users/availability").param("email", email))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  @DisplayName("Get user right after register")
+  void getUserAfterRegister() throws Exception {
+    var recentWriteReads =
+        meterRegistry.get("users.reads.routing").tag("reason", "recent-write").counter();
+    double recentWriteReadsBefore = recentWriteReads.count();
+
+    // Register
+    var response =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.post("/v1/users/register")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        objectMapper.writeValueAsString(
+                            new UserRegisterDto(email, email, password))))
+            .andExpect(status().isCreated())
+            .andExpect(header().exists(ReadRouter.CONSISTENCY_TOKEN_HEADER))
+            .andReturn()
+            .getResponse();
+
+    // Follow location with the consistency token, user is read from primary
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get(response.getHeader(HttpHeaders.LOCATION))
+                .header(
+                    ReadRouter.CONSISTENCY_TOKEN_HEADER,
+                    response.getHeader(ReadRouter.CONSISTENCY_TOKEN_HEADER)))
+        .andExpect(status().isOk());
+
+    Assertions.assertEquals(recentWriteReadsBefore + 1, recentWriteReads.count());
+  }
+
+  @Test
+  @DisplayName("Get user with a consistency token from the future")
+  void getUserWithFutureToken() throws Exception {
+    var tokenReads = meterRegistry.get("users.reads.routing").tag("reason", "token").counter();
+    double tokenReadsBefore = tokenReads.count();
+
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // Token is ignored, user is read from replica
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get("/v1/users/" + userEntity.getId())
+                .header(
+                    ReadRouter.CONSISTENCY_TOKEN_HEADER,
+                    String.valueOf(System.currentTimeMillis() + 3600000)))
+        .andExpect(status().isOk());
+
+    Assertions.assertEquals(tokenReadsBefore, tokenReads.count());
+  }
+
+  @Test
+  @DisplayName("Register users in bulk")
+  void registerUsers() throws Exception {
+    // Create a valid user in DB
+    userMutationRepository.save(
+        GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    // users to register
+    List<UserRegisterDto> usersRegister =
+        List.of(
+            new UserRegisterDto(email, email, password),
+            new UserRegisterDto(email + 2, email + 2, password),
+            new UserRegisterDto(email + 3, email + 3, password));
+
+    // Register
+    var result =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.post("/v1/users/register/batch")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(usersRegister)))
+            .andExpect(status().isOk());
+
+    // Result
+    var content = result.andReturn().getResponse().getContentAsString();
+    List<UserRegisterResultDto> results =
+        objectMapper.readValue(content, new TypeReference<>() {});
+    Optional<UserEntity> user = userQueryRepository.findByEmail(email + 3);
+
+    Assertions.assertEquals(3, results.size());
+    Assertions.assertEquals(RegisterStatus.ALREADY_EXISTS, results.get(0).getStatus());
+    Assertions.assertEquals(RegisterStatus.CREATED, results.get(1).getStatus());
+    Assertions.assertEquals(RegisterStatus.CREATED, results.get(2).getStatus());
+    Assertions.assertTrue(user.isPresent());
+    Assertions.assertEquals(user.get().getId(), results.get(2).getId());
+    Assertions.assertEquals(Role.USER, user.get().getRole());
+    Assertions.assertEquals(AuthProvider.UNSEEN, user.get().getProvider());
+  }
+
   @Test
   @DisplayName("Update user")
   void updateUser() throws Exception {
@@ -329,4 +1126,223 @@ class UserControllerTests {
     Assertions.assertFalse(userMutationRepository.findById(userEntity.getId()).isPresent());
     Assertions.assertFalse(groupMutationRepository.findById(groupEntity.getId()).isPresent());
   }
+
+  @Test
+  @DisplayName("Delete user that is owner of a group with more users")
+  void deleteUserWithSharedGroup() throws Exception {
+
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+    UserEntity userEntity2 =
+        userMutationRepository.save(
+            GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+    GroupEntity groupEntity =
+        groupMutationRepository.save(GenerateGroup("Group", "test", userEntity.getId(), true));
+    IterationEntity iterationEntity =
+        iterationMutationRepository.save(GenerateIteration(groupEntity.getId()));
+    PairEntity pairEntity =
+        pairMutationRepository.save(
+            GeneratePair(iterationEntity.getId(), userEntity.getId(), userEntity2.getId()));
+
+    userGroupRelationMutationRepository.save(
+        UserGroupRelationEntity.builder()
+            .userId(userEntity.getId())
+            .groupId(groupEntity.getId())
+            .build());
+    userGroupRelationMutationRepository.save(
+        UserGroupRelationEntity.builder()
+            .userId(userEntity2.getId())
+            .groupId(groupEntity.getId())
+            .build());
+
+    // Delete
+    var result =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.delete("/v1/users/" + userEntity.getId())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    UserDeletionDto userDeletion =
+        objectMapper.readValue(
+            result.andReturn().getResponse().getContentAsString(), UserDeletionDto.class);
+
+    Assertions.assertEquals(1, userDeletion.getGroupRelations());
+    Assertions.assertEquals(1, userDeletion.getGiftingPairs());
+    Assertions.assertEquals(0, userDeletion.getGiftedPairs());
+    Assertions.assertEquals(1, userDeletion.getGroupsReassigned());
+    Assertions.assertEquals(0, userDeletion.getGroupsDeleted());
+    Assertions.assertEquals(
+        userEntity2.getId(),
+        groupMutationRepository.findById(groupEntity.getId()).get().getOwner());
+    Assertions.assertEquals(
+        -1L, pairMutationRepository.findById(pairEntity.getId()).get().getGiftingUserId());
+    Assertions.assertTrue(
+        iterationMutationRepository.findById(iterationEntity.getId()).isPresent());
+  }
+
+  @Test
+  @DisplayName("Delete user in background")
+  void deleteUserAsync() throws Exception {
+
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+    UserEntity userEntity2 =
+        userMutationRepository.save(
+            GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+    GroupEntity sharedGroup =
+        groupMutationRepository.save(GenerateGroup("Group", "test", userEntity.getId(), true));
+    GroupEntity ownGroup =
+        groupMutationRepository.save(GenerateGroup("Own", "own", userEntity.getId(), true));
+    IterationEntity iterationEntity =
+        iterationMutationRepository.save(GenerateIteration(ownGroup.getId()));
+    pairMutationRepository.save(
+        GeneratePair(iterationEntity.getId(), userEntity.getId(), userEntity.getId()));
+
+    userGroupRelationMutationRepository.save(
+        UserGroupRelationEntity.builder()
+            .userId(userEntity.getId())
+            .groupId(sharedGroup.getId())
+            .build());
+    userGroupRelationMutationRepository.save(
+        UserGroupRelationEntity.builder()
+            .userId(userEntity2.getId())
+            .groupId(sharedGroup.getId())
+            .build());
+
+    // Delete
+    var result =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.delete("/v1/users/" + userEntity.getId())
+                    .param("async", "true")
+                    .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists(HttpHeaders.LOCATION));
+    UserDeletionJobDto job =
+        objectMapper.readValue(
+            result.andReturn().getResponse().getContentAsString(), UserDeletionJobDto.class);
+    Assertions.assertFalse(userMutationRepository.findById(userEntity.getId()).isPresent());
+
+    // Wait for the job
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!job.isCompleted() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+      job =
+          objectMapper.readValue(
+              mockMvc
+                  .perform(MockMvcRequestBuilders.get("/v1/users/deletions/" + job.getId()))
+                  .andExpect(status().isOk())
+                  .andReturn()
+                  .getResponse()
+                  .getContentAsString(),
+              UserDeletionJobDto.class);
+    }
+
+    Assertions.assertTrue(job.isCompleted());
+    Assertions.assertEquals(1, job.getGroupRelations());
+    Assertions.assertEquals(1, job.getGiftingPairs());
+    Assertions.assertEquals(1, job.getGiftedPairs());
+    Assertions.assertEquals(1, job.getGroupsReassigned());
+    Assertions.assertEquals(1, job.getGroupsDeleted());
+    Assertions.assertEquals(1, job.getIterationsDeleted());
+    Assertions.assertEquals(1, job.getPairsDeleted());
+    Assertions.assertEquals(
+        userEntity2.getId(),
+        groupMutationRepository.findById(sharedGroup.getId()).get().getOwner());
+    Assertions.assertFalse(groupMutationRepository.findById(ownGroup.getId()).isPresent());
+  }
+
+  @Test
+  @DisplayName("Get user deletion job that not exists")
+  void getDeletionJobNotExists() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders.get("/v1/users/deletions/" + new Random().nextInt()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("Get user changes since a sequence")
+  void getUserChanges() throws Exception {
+    long since = userChanges(0).getNext();
+
+    // Register, update and delete
+    String location =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.post("/v1/users/register")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        objectMapper.writeValueAsString(
+                            new UserRegisterDto(email, email, password))))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+    long id = Long.parseLong(location.substring(location.lastIndexOf('/') + 1));
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.patch("/v1/users/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(UpdateUserDto.builder().name("Test").build())))
+        .andExpect(status().isOk());
+    mockMvc.perform(MockMvcRequestBuilders.delete("/v1/users/" + id)).andExpect(status().isOk());
+
+    UserChangesDto changes = userChanges(since);
+
+    Assertions.assertEquals(
+        List.of(UserChangeType.REGISTERED, UserChangeType.UPDATED, UserChangeType.DELETED),
+        changes.getChanges().stream().map(UserChangeDto::getType).toList());
+    Assertions.assertTrue(changes.getChanges().stream().allMatch(c -> c.getUserId() == id));
+    // Sequences follow the commits, without gaps
+    Assertions.assertEquals(
+        List.of(since + 1, since + 2, since + 3),
+        changes.getChanges().stream().map(UserChangeDto::getSequence).toList());
+    Assertions.assertEquals(changes.getChanges().get(2).getSequence(), changes.getNext());
+    Assertions.assertTrue(userChanges(changes.getNext()).getChanges().isEmpty());
+  }
+
+  @Test
+  @DisplayName("Stream user changes")
+  void streamUserChanges() throws Exception {
+    long since = userChanges(0).getNext();
+    MvcResult stream =
+        mockMvc
+            .perform(MockMvcRequestBuilders.get("/v1/users/changes/stream?since=" + since))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.post("/v1/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(new UserRegisterDto(email, email, password))))
+        .andExpect(status().isCreated());
+
+    // Changes are polled in background
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!stream.getResponse().getContentAsString().contains("event:REGISTERED")
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+
+    String events = stream.getResponse().getContentAsString();
+    Assertions.assertTrue(events.contains("event:REGISTERED"));
+    Assertions.assertTrue(events.contains("\"email\":\"" + email + "\""));
+  }
+
+  private UserChangesDto userChanges(long since) throws Exception {
+    return objectMapper.readValue(
+        mockMvc
+            .perform(MockMvcRequestBuilders.get("/v1/users/changes?limit=1000&since=" + since))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString(),
+        UserChangesDto.class);
+  }
 }
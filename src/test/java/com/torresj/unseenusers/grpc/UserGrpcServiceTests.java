@@ -0,0 +1,214 @@
+package com.torresj.unseenusers.grpc;
+
+import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseen.repositories.mutations.UserMutationRepository;
+import com.torresj.unseenusers.cache.UserCache;
+import com.torresj.unseenusers.exceptions.UserNotFoundException;
+import com.torresj.unseenusers.grpc.proto.BatchGetUsersRequest;
+import com.torresj.unseenusers.grpc.proto.BatchGetUsersResponse;
+import com.torresj.unseenusers.grpc.proto.GetUserByEmailRequest;
+import com.torresj.unseenusers.grpc.proto.GetUserRequest;
+import com.torresj.unseenusers.grpc.proto.ListUsersRequest;
+import com.torresj.unseenusers.grpc.proto.User;
+import com.torresj.unseenusers.grpc.proto.UsersGrpc;
+import com.torresj.unseenusers.services.UserService;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+// Own in-process name, the context of other test classes may still be running its server
+@ActiveProfiles("test")
+@SpringBootTest(properties = "grpc.in-process-name=unseen-users-grpc-test")
+class UserGrpcServiceTests {
+
+  private final String email = "test@test.com";
+  private final String password = "test";
+
+  @Autowired private UserMutationRepository userMutationRepository;
+  @Autowired private UserCache userCache;
+  @SpyBean private UserService userService;
+
+  private ManagedChannel channel;
+  private UsersGrpc.UsersBlockingStub users;
+
+  @BeforeEach
+  public void init() {
+    userMutationRepository.deleteAll();
+    userCache.clear();
+    channel = InProcessChannelBuilder.forName("unseen-users-grpc-test").directExecutor().build();
+    users = UsersGrpc.newBlockingStub(channel);
+  }
+
+  @AfterEach
+  public void close() {
+    channel.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Get user by id and email")
+  void getUser() {
+    // Create a valid user in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.ADMIN, AuthProvider.GOOGLE, true));
+
+    User user = users.getUser(GetUserRequest.newBuilder().setId(userEntity.getId()).build());
+
+    Assertions.assertEquals(userEntity.getId(), user.getId());
+    Assertions.assertEquals(email, user.getEmail());
+    Assertions.assertEquals(email, user.getName());
+    Assertions.assertEquals(com.torresj.unseenusers.grpc.proto.Role.ADMIN, user.getRole());
+    Assertions.assertEquals(
+        com.torresj.unseenusers.grpc.proto.AuthProvider.GOOGLE, user.getProvider());
+    Assertions.assertEquals(1, user.getNumLogins());
+    Assertions.assertTrue(user.hasCreateAt());
+    Assertions.assertEquals("", user.getPhotoUrl());
+
+    user = users.getUserByEmail(GetUserByEmailRequest.newBuilder().setEmail(email).build());
+
+    Assertions.assertEquals(userEntity.getId(), user.getId());
+  }
+
+  @Test
+  @DisplayName("Get user that not exists")
+  void getUserNotExists() {
+    StatusRuntimeException exception =
+        Assertions.assertThrows(
+            StatusRuntimeException.class,
+            () ->
+                users.getUser(GetUserRequest.newBuilder().setId(new Random().nextLong()).build()));
+
+    Assertions.assertEquals(Status.Code.NOT_FOUND, exception.getStatus().getCode());
+
+    exception =
+        Assertions.assertThrows(
+            StatusRuntimeException.class,
+            () ->
+                users.getUserByEmail(
+                    GetUserByEmailRequest.newBuilder().setEmail("unknown@test.com").build()));
+
+    Assertions.assertEquals(Status.Code.NOT_FOUND, exception.getStatus().getCode());
+  }
+
+  @Test
+  @DisplayName("Get user failing")
+  void getUserFailing() throws UserNotFoundException {
+    doThrow(new IllegalStateException("Database down")).when(userService).user(anyLong());
+    doThrow(new IllegalStateException("Database down")).when(userService).users(any(), any());
+
+    StatusRuntimeException exception =
+        Assertions.assertThrows(
+            StatusRuntimeException.class,
+            () -> users.getUser(GetUserRequest.newBuilder().setId(1).build()));
+
+    Assertions.assertEquals(Status.Code.INTERNAL, exception.getStatus().getCode());
+    Assertions.assertEquals("Internal error", exception.getStatus().getDescription());
+    Assertions.assertFalse(exception.getMessage().contains("Database down"));
+
+    exception =
+        Assertions.assertThrows(
+            StatusRuntimeException.class,
+            () -> users.batchGetUsers(BatchGetUsersRequest.newBuilder().addIds(1).build()));
+
+    Assertions.assertEquals(Status.Code.INTERNAL, exception.getStatus().getCode());
+    Assertions.assertEquals("Internal error", exception.getStatus().getDescription());
+    Assertions.assertFalse(exception.getMessage().contains("Database down"));
+  }
+
+  @Test
+  @DisplayName("Get users in batch")
+  void batchGetUsers() {
+    // Create users in DB
+    UserEntity userEntity =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true));
+    UserEntity userEntity2 =
+        userMutationRepository.save(
+            GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true));
+
+    BatchGetUsersResponse response =
+        users.batchGetUsers(
+            BatchGetUsersRequest.newBuilder()
+                .addIds(userEntity.getId())
+                .addIds(-1L)
+                .addEmails(email + 2)
+                .addEmails("unknown@test.com")
+                .build());
+
+    Assertions.assertEquals(
+        List.of(userEntity.getId(), userEntity2.getId()),
+        response.getUsersList().stream().map(User::getId).toList());
+    Assertions.assertEquals(List.of(-1L), response.getNotFoundList());
+    Assertions.assertEquals(List.of("unknown@test.com"), response.getEmailsNotFoundList());
+
+    // Too many users
+    StatusRuntimeException exception =
+        Assertions.assertThrows(
+            StatusRuntimeException.class,
+            () ->
+                users.batchGetUsers(
+                    BatchGetUsersRequest.newBuilder()
+                        .addAllIds(IntStream.range(0, 101).mapToObj(Long::valueOf).toList())
+                        .build()));
+
+    Assertions.assertEquals(Status.Code.INVALID_ARGUMENT, exception.getStatus().getCode());
+  }
+
+  @Test
+  @DisplayName("List users as a stream")
+  void listUsers() {
+    // More users than a page, some of them admins
+    List<UserEntity> userEntities = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      Role role = i % 10 == 0 ? Role.ADMIN : Role.USER;
+      userEntities.add(
+          GenerateUser("user" + i + "@test.com", password, role, AuthProvider.UNSEEN, true));
+    }
+    List<Long> ids = new ArrayList<>();
+    userMutationRepository.saveAll(userEntities).forEach(saved -> ids.add(saved.getId()));
+
+    List<Long> listed = new ArrayList<>();
+    users
+        .listUsers(ListUsersRequest.getDefaultInstance())
+        .forEachRemaining(user -> listed.add(user.getId()));
+
+    Assertions.assertEquals(250, listed.size());
+    Collections.sort(ids);
+    Assertions.assertEquals(ids, listed.stream().sorted().toList());
+
+    // Filtered by role and email
+    listed.clear();
+    users
+        .listUsers(
+            ListUsersRequest.newBuilder()
+                .setRole(com.torresj.unseenusers.grpc.proto.Role.ADMIN)
+                .setFilter("user1")
+                .build())
+        .forEachRemaining(user -> listed.add(user.getId()));
+
+    // user10, user100 to user190 (every tenth), user200 is not matched by the filter
+    Assertions.assertEquals(11, listed.size());
+  }
+}
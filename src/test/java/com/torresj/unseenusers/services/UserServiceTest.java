@@ -1,26 +1,82 @@
 package com.torresj.unseenusers.services;
 
-import static com.torresj.unseenusers.utils.EntityGenerator.GenerateGroup;
-import static com.torresj.unseenusers.utils.EntityGenerator.GenerateIteration;
-import static com.torresj.unseenusers.utils.EntityGenerator.GeneratePair;
 import static com.torresj.unseenusers.utils.EntityGenerator.GenerateUser;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.torresj.unseen.entities.*;
-import com.torresj.unseen.repositories.mutations.*;
-import com.torresj.unseen.repositories.queries.*;
+import com.torresj.unseen.repositories.mutations.UserMutationRepository;
+import com.torresj.unseen.repositories.queries.UserQueryRepository;
+import com.torresj.unseenusers.cache.SingleFlight;
+import com.torresj.unseenusers.cache.UserCache;
+import com.torresj.unseenusers.cache.UserCountCache;
+import com.torresj.unseenusers.cache.UserEmailFilter;
+import com.torresj.unseenusers.cache.UserLoginBuffer;
+import com.torresj.unseenusers.dtos.CursorPageUserDto;
 import com.torresj.unseenusers.dtos.PageUserDto;
+import com.torresj.unseenusers.dtos.RegisterStatus;
+import com.torresj.unseenusers.dtos.TotalAccuracy;
+import com.torresj.unseenusers.dtos.UserBatchDto;
 import com.torresj.unseenusers.dtos.UpdateUserDto;
+import com.torresj.unseenusers.dtos.UserDeletionDto;
+import com.torresj.unseenusers.dtos.UserDeletionJobDto;
 import com.torresj.unseenusers.dtos.UserDto;
 import com.torresj.unseenusers.dtos.UserRegisterDto;
+import com.torresj.unseenusers.dtos.UserRegisterResultDto;
+import com.torresj.unseenusers.entities.UserChangeEntity;
+import com.torresj.unseenusers.entities.UserChangeType;
+import com.torresj.unseenusers.exceptions.InvalidCursorException;
+import com.torresj.unseenusers.exceptions.PasswordHashingRejectedException;
 import com.torresj.unseenusers.exceptions.UserAlreadyExistsException;
 import com.torresj.unseenusers.exceptions.UserNotFoundException;
+import com.torresj.unseenusers.jobs.UserDeletionJobs;
+import com.torresj.unseenusers.mappers.CursorMapper;
+import com.torresj.unseenusers.mappers.ETagMapper;
 import com.torresj.unseenusers.mappers.PageMapper;
 import com.torresj.unseenusers.mappers.UserMapper;
+import com.torresj.unseenusers.outbox.UserChangeOutbox;
+import com.torresj.unseenusers.passwords.PasswordHasher;
+import com.torresj.unseenusers.repositories.mutations.UserChangeMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserChangeSequenceMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserDeletionMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserLoginBatchMutationRepository.UserLogins;
+import com.torresj.unseenusers.repositories.mutations.UserLoginMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserLoginMutationRepository.LoginUserView;
+import com.torresj.unseenusers.repositories.mutations.UserReadMutationRepository;
+import com.torresj.unseenusers.repositories.mutations.UserUpdateMutationRepository;
+import com.torresj.unseenusers.repositories.queries.UserBatchQueryRepository;
+import com.torresj.unseenusers.repositories.queries.UserExportQueryRepository;
+import com.torresj.unseenusers.repositories.queries.UserKeysetQueryRepository;
+import com.torresj.unseenusers.repositories.queries.UserSearchView;
+import com.torresj.unseenusers.repositories.queries.UserVersionView;
+import com.torresj.unseenusers.repositories.queries.UserView;
+import com.torresj.unseenusers.repositories.queries.UserViewQueryRepository;
+import com.torresj.unseenusers.routing.ReadRouter;
+import com.torresj.unseenusers.search.UserSearchIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -29,8 +85,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mapstruct.factory.Mappers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
@@ -39,34 +104,107 @@ class UserServiceTest {
   private final String password = "test";
   @Mock private UserQueryRepository userQueryRepository;
   @Mock private UserMutationRepository userMutationRepository;
-  @Mock private UserGroupRelationMutationRepository userGroupRelationMutationRepository;
-  @Mock private UserGroupRelationQueryRepository userGroupRelationQueryRepository;
-  @Mock private PairQueryRepository pairQueryRepository;
-  @Mock private PairMutationRepository pairMutationRepository;
-  @Mock private GroupQueryRepository groupQueryRepository;
-  @Mock private GroupMutationRepository groupMutationRepository;
-  @Mock private IterationQueryRepository iterationQueryRepository;
-  @Mock private IterationMutationRepository iterationMutationRepository;
+  @Mock private UserDeletionMutationRepository userDeletionMutationRepository;
+  @Mock private UserKeysetQueryRepository userKeysetQueryRepository;
+  @Mock private UserBatchQueryRepository userBatchQueryRepository;
+  @Mock private UserLoginMutationRepository userLoginMutationRepository;
+  @Mock private PlatformTransactionManager transactionManager;
+  @Mock private UserExportQueryRepository userExportQueryRepository;
+  private UserEmailFilter userEmailFilter;
+  @Mock private UserViewQueryRepository userViewQueryRepository;
+  private UserSearchIndex userSearchIndex;
+  @Mock private UserReadMutationRepository userReadMutationRepository;
+  @Mock private UserDeletionJobs userDeletionJobs;
+  @Mock private UserChangeMutationRepository userChangeMutationRepository;
+  @Mock private UserChangeSequenceMutationRepository userChangeSequenceMutationRepository;
+  @Mock private UserUpdateMutationRepository userUpdateMutationRepository;
+  private ReadRouter readRouter;
+  private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+  private UserLoginBuffer userLoginBuffer;
+  private MeterRegistry meterRegistry;
   private UserService userService;
 
   @BeforeEach
   void setUp() {
     UserMapper userMapper = Mappers.getMapper(UserMapper.class);
     PageMapper pageMapper = new PageMapper(userMapper);
+    UserCache userCache = new UserCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    readRouter =
+        new ReadRouter(
+            userViewQueryRepository,
+            Duration.ofSeconds(10),
+            Duration.ZERO,
+            Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+    userLoginBuffer =
+        new UserLoginBuffer(
+            userLoginMutationRepository,
+            userCache,
+            readRouter,
+            transactionManager,
+            new SimpleMeterRegistry());
+    userEmailFilter =
+        new UserEmailFilter(
+            userExportQueryRepository,
+            transactionManager,
+            1000,
+            0.01,
+            3600000,
+            new SimpleMeterRegistry());
+    userSearchIndex =
+        new UserSearchIndex(
+            userExportQueryRepository,
+            transactionManager,
+            3600000,
+            Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+    // Recorded changes take their sequences from the counter
+    AtomicLong lastSequence = new AtomicLong();
+    lenient()
+        .when(userChangeSequenceMutationRepository.increment(anyLong()))
+        .thenAnswer(
+            invocation -> {
+              lastSequence.addAndGet(invocation.getArgument(0));
+              return 1;
+            });
+    lenient()
+        .when(userChangeSequenceMutationRepository.findLastSequence())
+        .thenAnswer(invocation -> Optional.of(lastSequence.get()));
+    meterRegistry = new SimpleMeterRegistry();
     userService =
         new UserService(
             userQueryRepository,
             userMutationRepository,
-            userGroupRelationMutationRepository,
-            userGroupRelationQueryRepository,
-            pairQueryRepository,
-            pairMutationRepository,
-            groupQueryRepository,
-            groupMutationRepository,
-            iterationQueryRepository,
-            iterationMutationRepository,
+            userDeletionMutationRepository,
             pageMapper,
-            userMapper);
+            userMapper,
+            userCache,
+            userKeysetQueryRepository,
+            new CursorMapper(),
+            userBatchQueryRepository,
+            userLoginBuffer,
+            userEmailFilter,
+            userViewQueryRepository,
+            userSearchIndex,
+            new ETagMapper(),
+            readRouter,
+            userReadMutationRepository,
+            new SingleFlight<>("users-by-id", meterRegistry),
+            new SingleFlight<>("users-by-email", meterRegistry),
+            new SingleFlight<>("users-page", meterRegistry),
+            userDeletionJobs,
+            new UserChangeOutbox(
+                userChangeMutationRepository,
+                userChangeSequenceMutationRepository,
+                transactionManager),
+            new PasswordHasher("bcrypt", 4, 16384, 2, 2, 64, new SimpleMeterRegistry()),
+            new UserCountCache(
+                userViewQueryRepository, 100, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+            userUpdateMutationRepository);
+  }
+
+  private UserView view(UserEntity userEntity) {
+    return projectionFactory.createProjection(UserView.class, userEntity);
   }
 
   @Test
@@ -77,9 +215,10 @@ class UserServiceTest {
         GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userQueryRepository.findAll(any()))
+    when(userViewQueryRepository.findAllBy(any()))
         .thenReturn(
-            new PageImpl<>(List.of(userEntityMock, userEntityMock2), Pageable.ofSize(2), 2));
+            new PageImpl<>(
+                List.of(view(userEntityMock), view(userEntityMock2)), Pageable.ofSize(2), 2));
 
     PageUserDto result = userService.users(0, 10, null, null);
 
@@ -98,8 +237,8 @@ class UserServiceTest {
     UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userQueryRepository.findByEmailContainingIgnoreCase(any(), any()))
-        .thenReturn(new PageImpl<>(List.of(userEntityMock), Pageable.ofSize(1), 1));
+    when(userViewQueryRepository.findByEmailContainingIgnoreCase(any(), any()))
+        .thenReturn(new PageImpl<>(List.of(view(userEntityMock)), Pageable.ofSize(1), 1));
 
     PageUserDto result = userService.users(0, 10, "filter", null);
 
@@ -117,8 +256,8 @@ class UserServiceTest {
     UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userQueryRepository.findByRole(any(), any()))
-        .thenReturn(new PageImpl<>(List.of(userEntityMock), Pageable.ofSize(1), 1));
+    when(userViewQueryRepository.findByRole(any(), any()))
+        .thenReturn(new PageImpl<>(List.of(view(userEntityMock)), Pageable.ofSize(1), 1));
 
     PageUserDto result = userService.users(0, 10, null, Role.USER);
 
@@ -136,8 +275,8 @@ class UserServiceTest {
     UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userQueryRepository.findByEmailContainingIgnoreCaseAndRole(any(), any(), any()))
-        .thenReturn(new PageImpl<>(List.of(userEntityMock), Pageable.ofSize(1), 1));
+    when(userViewQueryRepository.findByEmailContainingIgnoreCaseAndRole(any(), any(), any()))
+        .thenReturn(new PageImpl<>(List.of(view(userEntityMock)), Pageable.ofSize(1), 1));
 
     PageUserDto result = userService.users(0, 10, "filter", Role.USER);
 
@@ -149,6 +288,128 @@ class UserServiceTest {
     Assertions.assertEquals(email, result.getContent().get(0).getEmail());
   }
 
+  @Test
+  @DisplayName("Get users with estimated totals")
+  void getUsersEstimatedTotals() {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+
+    // Mocks
+    when(userViewQueryRepository.findSliceByEmailContainingIgnoreCase(any(), any()))
+        .thenReturn(new SliceImpl<>(List.of(view(userEntityMock)), PageRequest.of(0, 1), true));
+    when(userViewQueryRepository.countByEmailContainingIgnoreCase("filter")).thenReturn(5L);
+
+    PageUserDto result = userService.users(0, 1, "FILTER", null, TotalAccuracy.ESTIMATED);
+
+    Assertions.assertEquals(TotalAccuracy.ESTIMATED, result.getPageInfo().getTotalAccuracy());
+    Assertions.assertEquals(5, result.getPageInfo().getTotalElements());
+    Assertions.assertEquals(5, result.getPageInfo().getTotalPages());
+    Assertions.assertFalse(result.getPageInfo().isLastPage());
+
+    // Deleted users matching the filter are discounted, without counting again
+    when(userQueryRepository.findById(1L))
+        .thenReturn(
+            Optional.of(
+                GenerateUser("filter@test.com", password, Role.ADMIN, AuthProvider.UNSEEN, true)));
+    Assertions.assertDoesNotThrow(() -> userService.delete(1L));
+    result = userService.users(0, 1, "filter", null, TotalAccuracy.ESTIMATED);
+
+    Assertions.assertEquals(4, result.getPageInfo().getTotalElements());
+    verify(userViewQueryRepository, times(1)).countByEmailContainingIgnoreCase(any());
+    verify(userViewQueryRepository, times(0)).findByEmailContainingIgnoreCase(any(), any());
+  }
+
+  @Test
+  @DisplayName("Search users")
+  void searchUsers() {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+    UserEntity userEntityMock2 =
+        GenerateUser("other" + email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock2.setId(2L);
+    UserEntity userEntityMock3 =
+        GenerateUser("admin@example.com", password, Role.ADMIN, AuthProvider.UNSEEN, true);
+    userEntityMock3.setId(3L);
+
+    // Mocks
+    when(userExportQueryRepository.streamSearchViews())
+        .thenReturn(
+            Stream.of(userEntityMock2, userEntityMock, userEntityMock3)
+                .map(user -> projectionFactory.createProjection(UserSearchView.class, user)));
+    when(userBatchQueryRepository.findByIdIn(any()))
+        .thenReturn(List.of(userEntityMock2, userEntityMock));
+
+    userSearchIndex.rebuild();
+    PageUserDto result = userService.search("TEST", 0, 10, Role.USER);
+
+    Assertions.assertEquals(2, result.getPageInfo().getTotalElements());
+    Assertions.assertEquals(email, result.getContent().get(0).getEmail());
+    Assertions.assertEquals("other" + email, result.getContent().get(1).getEmail());
+    verify(userViewQueryRepository, times(0)).findByEmailContainingIgnoreCase(any(), any());
+  }
+
+  @Test
+  @DisplayName("Rebuild search index from a replica without the last writes")
+  void rebuildSearchIndexWithReplicaLag() {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+    UserEntity userEntityMock2 =
+        GenerateUser("other" + email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock2.setId(2L);
+
+    // Mocks, the replica returns both users as they were on every build
+    when(userExportQueryRepository.streamSearchViews())
+        .thenAnswer(
+            invocation ->
+                Stream.of(userEntityMock, userEntityMock2)
+                    .map(user -> projectionFactory.createProjection(UserSearchView.class, user)));
+
+    userSearchIndex.rebuild();
+    userSearchIndex.remove(2L);
+    userSearchIndex.put(1L, email, "renamed", Role.USER);
+    userSearchIndex.rebuild();
+
+    Assertions.assertEquals(List.of(1L), userSearchIndex.search("test", null).orElseThrow());
+    Assertions.assertEquals(List.of(1L), userSearchIndex.search("renamed", null).orElseThrow());
+    Assertions.assertEquals(List.of(), userSearchIndex.search("other", null).orElseThrow());
+  }
+
+  @Test
+  @DisplayName("Get users by cursor")
+  void getUsersByCursor() throws InvalidCursorException {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    UserEntity userEntityMock2 =
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true);
+
+    // Mocks
+    when(userKeysetQueryRepository.findFirstPage(any(), any(), any()))
+        .thenReturn(new SliceImpl<>(List.of(userEntityMock), PageRequest.of(0, 1), true));
+    when(userKeysetQueryRepository.findPageAfter(
+            eq(userEntityMock.getCreateAt()), eq(userEntityMock.getId()), any(), any(), any()))
+        .thenReturn(new SliceImpl<>(List.of(userEntityMock2), PageRequest.of(0, 1), false));
+
+    CursorPageUserDto firstPage = userService.usersByCursor(null, 1, null, null);
+    CursorPageUserDto secondPage =
+        userService.usersByCursor(firstPage.getPageInfo().getNextCursor(), 1, null, null);
+
+    Assertions.assertEquals(1, firstPage.getContent().size());
+    Assertions.assertEquals(email, firstPage.getContent().get(0).getEmail());
+    Assertions.assertFalse(firstPage.getPageInfo().isLastPage());
+    Assertions.assertNotNull(firstPage.getPageInfo().getNextCursor());
+    Assertions.assertEquals(1, secondPage.getContent().size());
+    Assertions.assertEquals(email + 2, secondPage.getContent().get(0).getEmail());
+    Assertions.assertTrue(secondPage.getPageInfo().isLastPage());
+    Assertions.assertNull(secondPage.getPageInfo().getNextCursor());
+  }
+
+  @Test
+  @DisplayName("Get users by invalid cursor")
+  void getUsersByInvalidCursor() {
+    Assertions.assertThrows(
+        InvalidCursorException.class,
+        () -> userService.usersByCursor("invalid", 1, null, null),
+        "Invalid cursor exception should be thrown");
+  }
+
   @Test
   @DisplayName("Get user by ID")
   void getUserByID() throws UserNotFoundException {
@@ -168,6 +429,254 @@ class UserServiceTest {
     Assertions.assertEquals(Role.USER, user.getRole());
   }
 
+  @Test
+  @DisplayName("Record logins")
+  void login() throws UserNotFoundException {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+
+    // Mocks
+    when(userQueryRepository.findById(userEntityMock.getId()))
+        .thenReturn(Optional.of(userEntityMock));
+
+    userService.login(userEntityMock.getId());
+    UserDto user = userService.login(userEntityMock.getId());
+
+    Assertions.assertEquals(userEntityMock.getNumLogins() + 2, user.getNumLogins());
+    Assertions.assertTrue(user.getLastConnection().isAfter(userEntityMock.getLastConnection()));
+    verify(userQueryRepository, times(1)).findById(userEntityMock.getId());
+
+    // Both logins are written in a single update, then the user is read from primary
+    LoginUserView loginUser =
+        projectionFactory.createProjection(LoginUserView.class, userEntityMock);
+    when(userLoginMutationRepository.findByIdIn(any())).thenReturn(List.of(loginUser));
+    Assertions.assertEquals(1, userLoginBuffer.flush());
+    verify(userLoginMutationRepository, times(1))
+        .addLogins(
+            eq(List.of(new UserLogins(userEntityMock.getId(), 2L, user.getLastConnection()))),
+            any());
+    Assertions.assertTrue(readRouter.readFromPrimary(email));
+    Assertions.assertEquals(0, userLoginBuffer.flush());
+  }
+
+  @Test
+  @DisplayName("Get user while its logins are flushed")
+  void getUserWhileFlushingLogins() throws Exception {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+    UserEntity flushedUserMock =
+        GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    flushedUserMock.setId(1L);
+    flushedUserMock.setNumLogins(userEntityMock.getNumLogins() + 2);
+    CountDownLatch readDuringCommit = new CountDownLatch(1);
+    ExecutorService reader = Executors.newSingleThreadExecutor();
+    List<Future<UserDto>> read = new ArrayList<>();
+
+    // Mocks, the user was written recently so it is read from primary, which has the logins
+    // flushed as soon as they are committed
+    readRouter.recordWrite(1L, email, LocalDateTime.now());
+    when(userReadMutationRepository.findById(1L))
+        .thenAnswer(
+            invocation -> {
+              readDuringCommit.countDown();
+              return Optional.of(flushedUserMock);
+            });
+    when(userLoginMutationRepository.findByIdIn(any()))
+        .thenReturn(
+            List.of(projectionFactory.createProjection(LoginUserView.class, userEntityMock)));
+    doAnswer(
+            invocation -> {
+              read.add(reader.submit(() -> userService.user(1L)));
+              Assertions.assertTrue(readDuringCommit.await(5, TimeUnit.SECONDS));
+              return null;
+            })
+        .when(transactionManager)
+        .commit(any());
+
+    userLoginBuffer.record(1L, LocalDateTime.now());
+    userLoginBuffer.record(1L, LocalDateTime.now());
+    Assertions.assertEquals(1, userLoginBuffer.flush());
+
+    // Read between the commit and the discount of the flushed logins, they count once
+    Assertions.assertEquals(
+        userEntityMock.getNumLogins() + 2, read.get(0).get(5, TimeUnit.SECONDS).getNumLogins());
+    Assertions.assertEquals(userEntityMock.getNumLogins() + 2, userService.user(1L).getNumLogins());
+    reader.shutdown();
+  }
+
+  @Test
+  @DisplayName("Get user ETag")
+  void getUserETag() throws UserNotFoundException {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+
+    // Mocks
+    when(userViewQueryRepository.findVersionById(userEntityMock.getId()))
+        .thenReturn(
+            Optional.of(projectionFactory.createProjection(UserVersionView.class, userEntityMock)));
+    when(userQueryRepository.findById(userEntityMock.getId()))
+        .thenReturn(Optional.of(userEntityMock));
+
+    // Version is read without loading the user
+    String eTag = userService.userETag(userEntityMock.getId());
+    verify(userQueryRepository, times(0)).findById(anyLong());
+
+    // Same tag once the user is cached, a new one after a login
+    Assertions.assertEquals(eTag, new ETagMapper().toETag(userService.user(1L)));
+    Assertions.assertEquals(eTag, userService.userETag(userEntityMock.getId()));
+    userService.login(userEntityMock.getId());
+    Assertions.assertNotEquals(eTag, userService.userETag(userEntityMock.getId()));
+    verify(userViewQueryRepository, times(1)).findVersionById(anyLong());
+  }
+
+  @Test
+  @DisplayName("Get user by ID after update reads from primary")
+  void getUserByIDAfterUpdate() throws UserNotFoundException, PasswordHashingRejectedException {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+    UserEntity otherUserEntityMock =
+        GenerateUser("other" + email, password, Role.USER, AuthProvider.UNSEEN, true);
+    otherUserEntityMock.setId(2L);
+
+    // Mocks
+    when(userUpdateMutationRepository.update(anyLong(), any(), any(), any(), anyBoolean(), any()))
+        .thenReturn(1);
+    when(userReadMutationRepository.findById(userEntityMock.getId()))
+        .thenReturn(Optional.of(userEntityMock));
+    when(userReadMutationRepository.findById(otherUserEntityMock.getId()))
+        .thenReturn(Optional.of(otherUserEntityMock));
+    when(userViewQueryRepository.findVersionById(userEntityMock.getId()))
+        .thenReturn(Optional.empty());
+
+    userService.update(userEntityMock.getId(), UpdateUserDto.builder().build());
+    userService.user(userEntityMock.getId());
+    verify(userReadMutationRepository, times(3)).findById(userEntityMock.getId());
+
+    // Update is not in the replica yet, every user is read from primary
+    readRouter.checkLag();
+    userService.user(otherUserEntityMock.getId());
+    verify(userReadMutationRepository, times(1)).findById(otherUserEntityMock.getId());
+    verify(userQueryRepository, times(0)).findById(anyLong());
+  }
+
+  @Test
+  @DisplayName("Concurrent lookups of the same user share the DB call")
+  void getUserByIDConcurrently() throws Exception {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    // Mocks
+    when(userQueryRepository.findById(userEntityMock.getId()))
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return Optional.of(userEntityMock);
+            });
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<UserDto> first = executor.submit(() -> userService.user(userEntityMock.getId()));
+      loading.await(5, TimeUnit.SECONDS);
+      Future<UserDto> second = executor.submit(() -> userService.user(userEntityMock.getId()));
+
+      // Second lookup joins the one in flight
+      Counter shared =
+          meterRegistry.counter(
+              "users.single-flight.calls", "name", "users-by-id", "result", "shared");
+      while (shared.count() == 0) Thread.onSpinWait();
+      release.countDown();
+
+      Assertions.assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+      verify(userQueryRepository, times(1)).findById(userEntityMock.getId());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Get user by ID from primary while a replica lookup is in flight")
+  void getUserByIDFromPrimaryConcurrently() throws Exception {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+    UserEntity updatedUserEntityMock =
+        GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true);
+    updatedUserEntityMock.setId(1L);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    // Mocks, the replica has the user before the update
+    when(userQueryRepository.findById(userEntityMock.getId()))
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return Optional.of(userEntityMock);
+            });
+    when(userReadMutationRepository.findById(userEntityMock.getId()))
+        .thenReturn(Optional.of(updatedUserEntityMock));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<UserDto> first = executor.submit(() -> userService.user(userEntityMock.getId()));
+      loading.await(5, TimeUnit.SECONDS);
+
+      // Written meanwhile, the next lookup reads primary instead of joining the one in flight
+      readRouter.recordWrite(userEntityMock.getId(), email, LocalDateTime.now());
+      Assertions.assertEquals(Role.ADMIN, userService.user(userEntityMock.getId()).getRole());
+      release.countDown();
+      Assertions.assertEquals(Role.USER, first.get(5, TimeUnit.SECONDS).getRole());
+
+      // Replica result was not cached over the primary one
+      Assertions.assertEquals(Role.ADMIN, userService.user(userEntityMock.getId()).getRole());
+      verify(userReadMutationRepository, times(1)).findById(userEntityMock.getId());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Replica lag probe expires when the write never shows up")
+  void replicaLagProbeExpires() {
+    ReadRouter router =
+        new ReadRouter(
+            userViewQueryRepository,
+            Duration.ofSeconds(10),
+            Duration.ZERO,
+            Duration.ZERO,
+            new SimpleMeterRegistry());
+
+    // Mocks, the user was deleted by another instance
+    when(userViewQueryRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+    router.recordWrite(1L, email, LocalDateTime.now());
+    router.checkLag();
+
+    Assertions.assertTrue(router.readFromPrimary(1L));
+    Assertions.assertFalse(router.readFromPrimary(2L));
+  }
+
+  @Test
+  @DisplayName("Get user by ID from cache")
+  void getUserByIDFromCache() throws UserNotFoundException {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+
+    // Mocks
+    when(userQueryRepository.findById(userEntityMock.getId()))
+        .thenReturn(Optional.of(userEntityMock));
+
+    userService.user(userEntityMock.getId());
+    UserDto user = userService.user(userEntityMock.getId());
+    UserDto userByEmail = userService.user(email);
+
+    Assertions.assertEquals(email, user.getEmail());
+    Assertions.assertEquals(userEntityMock.getId(), userByEmail.getId());
+    verify(userQueryRepository, times(1)).findById(userEntityMock.getId());
+  }
+
   @Test
   @DisplayName("Get user by ID not found")
   void getUserByIDNotFound() {
@@ -212,9 +721,54 @@ class UserServiceTest {
         "User not found exception should be thrown");
   }
 
+  @Test
+  @DisplayName("Get users by ids and emails")
+  void getUsersBatch() {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    UserEntity userEntityMock2 =
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+    userEntityMock2.setId(2L);
+
+    // Mocks
+    when(userBatchQueryRepository.findByIdIn(any())).thenReturn(List.of(userEntityMock));
+    when(userBatchQueryRepository.findByEmailIn(any())).thenReturn(List.of(userEntityMock2));
+
+    UserBatchDto result =
+        userService.users(List.of(1L, 3L), List.of(email + 2, "unknown@test.com"));
+
+    Assertions.assertEquals(2, result.getUsers().size());
+    Assertions.assertEquals(email, result.getUsers().get(1L).getEmail());
+    Assertions.assertEquals(email + 2, result.getUsers().get(2L).getEmail());
+    Assertions.assertEquals(List.of(3L), result.getNotFound());
+    Assertions.assertEquals(List.of("unknown@test.com"), result.getEmailsNotFound());
+  }
+
+  @Test
+  @DisplayName("Get users by emails ignoring case, recent writes from primary")
+  void getUsersBatchIgnoringCase() {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    UserEntity userEntityMock2 =
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+    userEntityMock2.setId(2L);
+    readRouter.recordWrite(2L, email + 2, LocalDateTime.now());
+
+    // Mocks
+    when(userBatchQueryRepository.findByEmailIn(any())).thenReturn(List.of(userEntityMock));
+    when(userReadMutationRepository.findByIdIn(List.of(2L))).thenReturn(List.of(userEntityMock2));
+
+    UserBatchDto result = userService.users(List.of(2L), List.of("TEST@test.com"));
+
+    Assertions.assertEquals(2, result.getUsers().size());
+    Assertions.assertEquals(email, result.getUsers().get(1L).getEmail());
+    Assertions.assertTrue(result.getEmailsNotFound().isEmpty());
+    verify(userBatchQueryRepository, times(0)).findByIdIn(any());
+  }
+
   @Test
   @DisplayName("Register user")
-  void registerUser() throws UserAlreadyExistsException {
+  void registerUser() throws UserAlreadyExistsException, PasswordHashingRejectedException {
 
     UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
     userEntityMock.setId(1L);
@@ -229,6 +783,70 @@ class UserServiceTest {
     Assertions.assertEquals(userEntityMock.getId(), user.getId());
     Assertions.assertEquals(AuthProvider.UNSEEN, user.getProvider());
     Assertions.assertEquals(Role.USER, user.getRole());
+    verify(userChangeMutationRepository, times(1))
+        .saveAll(
+            argThat(
+                changes -> {
+                  UserChangeEntity change = changes.iterator().next();
+                  return change.getType() == UserChangeType.REGISTERED
+                      && change.getUserId() == userEntityMock.getId()
+                      && change.getSequence() == 1;
+                }));
+    verify(userMutationRepository, times(1))
+        .save(
+            argThat(
+                userEntity ->
+                    new BCryptPasswordEncoder().matches(password, userEntity.getPassword())));
+  }
+
+  @Test
+  @DisplayName("Register user not found in email filter")
+  void registerUserNotInFilter()
+      throws UserAlreadyExistsException, PasswordHashingRejectedException {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+
+    // Mocks
+    when(userExportQueryRepository.streamEmails()).thenReturn(Stream.of("other@test.com"));
+    when(userMutationRepository.save(any())).thenReturn(userEntityMock);
+
+    userEmailFilter.rebuild();
+    Assertions.assertTrue(userService.isEmailAvailable(email));
+    userService.register(new UserRegisterDto(email, email, password));
+
+    // Email was not in filter, DB is not checked
+    verify(userQueryRepository, times(0)).findByEmail(email);
+    Assertions.assertTrue(userEmailFilter.mightContain(email));
+    Assertions.assertTrue(userEmailFilter.mightContain("TEST@test.com"));
+    Assertions.assertTrue(userEmailFilter.mightContain("OTHER@test.com"));
+  }
+
+  @Test
+  @DisplayName("Remove emails from the email filter")
+  void removeEmailsFromFilter() {
+    // Tiny filter, so emails share counters
+    UserEmailFilter tinyFilter =
+        new UserEmailFilter(
+            userExportQueryRepository, transactionManager, 1, 0.5, 3600000, meterRegistry);
+    List<String> emails = List.of("other0@test.com", "other1@test.com", "other2@test.com");
+
+    // Mocks
+    when(userExportQueryRepository.streamEmails())
+        .thenAnswer(invocation -> emails.stream())
+        .thenAnswer(invocation -> Stream.of("other@test.com"));
+
+    // Registered by another instance after the build and deleted here, it was never added
+    tinyFilter.rebuild();
+    Assertions.assertTrue(tinyFilter.mightContain(email));
+    tinyFilter.remove(email);
+    Assertions.assertTrue(emails.stream().allMatch(tinyFilter::mightContain));
+
+    // Registered and deleted here since the build
+    userEmailFilter.rebuild();
+    userEmailFilter.put(email);
+    userEmailFilter.remove(email);
+    Assertions.assertFalse(userEmailFilter.mightContain(email));
+    Assertions.assertTrue(userEmailFilter.mightContain("other@test.com"));
   }
 
   @Test
@@ -247,9 +865,103 @@ class UserServiceTest {
         "User already exists exception should be thrown");
   }
 
+  @Test
+  @DisplayName("Register users in bulk")
+  void registerUsers() throws PasswordHashingRejectedException {
+
+    UserEntity existingUserMock =
+        GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    UserEntity userEntityMock =
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(2L);
+
+    // Mocks
+    when(userReadMutationRepository.findByEmailIn(any())).thenReturn(List.of(existingUserMock));
+    when(userMutationRepository.saveAllAndFlush(any())).thenReturn(List.of(userEntityMock));
+
+    List<UserRegisterResultDto> results =
+        userService.register(
+            List.of(
+                new UserRegisterDto(email, email, password),
+                new UserRegisterDto(email + 2, email + 2, password),
+                new UserRegisterDto(email + 2, email + 2, password)));
+
+    Assertions.assertEquals(3, results.size());
+    Assertions.assertEquals(RegisterStatus.ALREADY_EXISTS, results.get(0).getStatus());
+    Assertions.assertNull(results.get(0).getId());
+    Assertions.assertEquals(RegisterStatus.CREATED, results.get(1).getStatus());
+    Assertions.assertEquals(2L, results.get(1).getId());
+    Assertions.assertEquals(RegisterStatus.ALREADY_EXISTS, results.get(2).getStatus());
+  }
+
+  @Test
+  @DisplayName("Register users in bulk while another instance registers one of them")
+  void registerUsersConcurrently() throws PasswordHashingRejectedException {
+
+    UserEntity concurrentUserMock =
+        GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    UserEntity userEntityMock =
+        GenerateUser(email + 2, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(2L);
+
+    // Mocks, the first insert fails on the unique email
+    when(userReadMutationRepository.findByEmailIn(any()))
+        .thenReturn(List.of())
+        .thenReturn(List.of(concurrentUserMock));
+    when(userMutationRepository.saveAllAndFlush(any()))
+        .thenThrow(new DataIntegrityViolationException("Duplicate email"))
+        .thenReturn(List.of(userEntityMock));
+
+    List<UserRegisterResultDto> results =
+        userService.register(
+            List.of(
+                new UserRegisterDto(email, email, password),
+                new UserRegisterDto(email + 2, email + 2, password)));
+
+    Assertions.assertEquals(RegisterStatus.ALREADY_EXISTS, results.get(0).getStatus());
+    Assertions.assertNull(results.get(0).getId());
+    Assertions.assertEquals(RegisterStatus.CREATED, results.get(1).getStatus());
+    Assertions.assertEquals(2L, results.get(1).getId());
+    Assertions.assertTrue(userEmailFilter.mightContain(email + 2));
+  }
+
+  @Test
+  @DisplayName("Hash passwords with the hashing queue full")
+  void hashPasswordsQueueFull() throws InterruptedException {
+    // One password is being hashed and one is queued, the third does not fit
+    MeterRegistry registry = new SimpleMeterRegistry();
+    PasswordHasher passwordHasher = new PasswordHasher("bcrypt", 12, 16384, 2, 1, 1, registry);
+    ExecutorService callers = Executors.newFixedThreadPool(2);
+    callers.submit(() -> passwordHasher.hash(password));
+    callers.submit(() -> passwordHasher.hash(password));
+    while (registry.get("users.passwords.queued").gauge().value() < 1) Thread.sleep(10);
+
+    Assertions.assertThrows(
+        PasswordHashingRejectedException.class,
+        () -> passwordHasher.hash(List.of(password)),
+        "Password hashing rejected exception should be thrown");
+    callers.shutdownNow();
+    passwordHasher.shutdown();
+  }
+
+  @Test
+  @DisplayName("Hash a batch of passwords bigger than the hashing queue")
+  void hashPasswordsBiggerThanQueue() throws PasswordHashingRejectedException {
+    PasswordHasher passwordHasher =
+        new PasswordHasher("bcrypt", 4, 16384, 2, 1, 1, new SimpleMeterRegistry());
+    List<String> passwords = Collections.nCopies(10, password);
+
+    List<String> hashes = passwordHasher.hash(passwords);
+
+    Assertions.assertEquals(10, hashes.size());
+    Assertions.assertTrue(
+        hashes.stream().allMatch(hash -> new BCryptPasswordEncoder().matches(password, hash)));
+    passwordHasher.shutdown();
+  }
+
   @Test
   @DisplayName("Update user")
-  void updateUser() throws UserNotFoundException {
+  void updateUser() throws UserNotFoundException, PasswordHashingRejectedException {
 
     UserEntity userEntityMock =
         GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, false);
@@ -259,8 +971,12 @@ class UserServiceTest {
     userEntityMock2.setId(1L);
 
     // Mocks
-    when(userQueryRepository.findById(any())).thenReturn(Optional.of(userEntityMock));
-    when(userMutationRepository.save(any())).thenReturn(userEntityMock2);
+    when(userReadMutationRepository.findById(any()))
+        .thenReturn(Optional.of(userEntityMock))
+        .thenReturn(Optional.of(userEntityMock2));
+    when(userUpdateMutationRepository.update(
+            eq(1L), eq(email + "2"), any(), eq(Role.ADMIN), eq(true), any()))
+        .thenReturn(1);
 
     UserDto user =
         userService.update(1L, new UpdateUserDto(email + "2", password + "2", true, Role.ADMIN));
@@ -278,7 +994,7 @@ class UserServiceTest {
   void updateUserThatNotExists() {
 
     // Mocks
-    when(userQueryRepository.findById(any())).thenReturn(Optional.empty());
+    when(userReadMutationRepository.findById(any())).thenReturn(Optional.empty());
 
     Assertions.assertThrows(
         UserNotFoundException.class,
@@ -288,32 +1004,92 @@ class UserServiceTest {
 
   @Test
   @DisplayName("Delete user")
-  void deleteUser()throws UserNotFoundException {
+  void deleteUser() throws UserNotFoundException {
     UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
-    UserEntity userEntityMock2 =
-        GenerateUser("test2@test.com", password, Role.USER, AuthProvider.UNSEEN, true);
-    GroupEntity groupEntityMock = GenerateGroup("test", "test", userEntityMock.getId(), false);
-    IterationEntity iterationEntityMock = GenerateIteration(groupEntityMock.getId());
-    PairEntity pairEntityMock =
-        GeneratePair(iterationEntityMock.getId(), userEntityMock.getId(), userEntityMock2.getId());
-
-    UserGroupRelationEntity userGroupRelation =
-        UserGroupRelationEntity.builder()
-            .groupId(groupEntityMock.getId())
-            .userId(userEntityMock.getId())
-            .build();
 
     // Mocks
     when(userQueryRepository.findById(userEntityMock.getId()))
-            .thenReturn(Optional.of(userEntityMock));
-    when(userGroupRelationQueryRepository.findByUserId(userEntityMock.getId()))
-        .thenReturn(List.of(userGroupRelation));
-    when(pairQueryRepository.findByGiftingUserIdOrGiftedUserId(
-            userEntityMock.getId(), userEntityMock.getId()))
-        .thenReturn(List.of(pairEntityMock));
-    when(groupQueryRepository.findByOwner(userEntityMock.getId()))
-        .thenReturn(Collections.emptyList());
-
-    userService.delete(userEntityMock.getId());
+        .thenReturn(Optional.of(userEntityMock));
+    when(userDeletionMutationRepository.deleteGroupRelations(userEntityMock.getId()))
+        .thenReturn(2);
+    when(userDeletionMutationRepository.unlinkGiftingPairs(userEntityMock.getId())).thenReturn(3);
+    when(userDeletionMutationRepository.unlinkGiftedPairs(userEntityMock.getId())).thenReturn(1);
+    when(userDeletionMutationRepository.reassignOwnedGroups(userEntityMock.getId()))
+        .thenReturn(1);
+    when(userDeletionMutationRepository.deleteOwnedGroupPairs(userEntityMock.getId()))
+        .thenReturn(4);
+    when(userDeletionMutationRepository.deleteOwnedGroupIterations(userEntityMock.getId()))
+        .thenReturn(2);
+    when(userDeletionMutationRepository.deleteOwnedGroups(userEntityMock.getId())).thenReturn(1);
+
+    UserDeletionDto result = userService.delete(userEntityMock.getId());
+
+    Assertions.assertEquals(userEntityMock.getId(), result.getId());
+    Assertions.assertEquals(2, result.getGroupRelations());
+    Assertions.assertEquals(3, result.getGiftingPairs());
+    Assertions.assertEquals(1, result.getGiftedPairs());
+    Assertions.assertEquals(1, result.getGroupsReassigned());
+    Assertions.assertEquals(4, result.getPairsDeleted());
+    Assertions.assertEquals(2, result.getIterationsDeleted());
+    Assertions.assertEquals(1, result.getGroupsDeleted());
+    verify(userDeletionMutationRepository, times(1)).deleteUser(userEntityMock.getId());
+  }
+
+  @Test
+  @DisplayName("Delete user in background")
+  void deleteUserAsync() throws UserNotFoundException {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+
+    // Mocks
+    when(userQueryRepository.findById(userEntityMock.getId()))
+        .thenReturn(Optional.of(userEntityMock));
+    when(userDeletionJobs.create(userEntityMock.getId()))
+        .thenReturn(UserDeletionJobDto.builder().id(2L).userId(userEntityMock.getId()).build());
+
+    UserDeletionJobDto job = userService.deleteAsync(userEntityMock.getId());
+
+    Assertions.assertEquals(2L, job.getId());
+    verify(userDeletionMutationRepository, times(1)).deleteUser(userEntityMock.getId());
+    verify(userDeletionMutationRepository, times(0)).deleteGroupRelations(anyLong());
+    verify(userDeletionJobs, times(1)).submit(2L);
+  }
+
+  @Test
+  @DisplayName("Delete user read from replica before the commit")
+  void deleteUserReadBeforeCommit() throws UserNotFoundException {
+    UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
+    userEntityMock.setId(1L);
+
+    // Mocks, the replica still has the user until the delete commits
+    when(userQueryRepository.findById(1L)).thenReturn(Optional.of(userEntityMock));
+    when(userReadMutationRepository.findById(1L)).thenReturn(Optional.empty());
+    when(userDeletionJobs.create(1L))
+        .thenReturn(UserDeletionJobDto.builder().id(2L).userId(1L).build());
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      userService.deleteAsync(1L);
+      Assertions.assertEquals(email, userService.user(1L).getEmail());
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    Assertions.assertThrows(UserNotFoundException.class, () -> userService.user(1L));
+  }
+
+  @Test
+  @DisplayName("Delete user that not exists")
+  void deleteUserThatNotExists() {
+
+    // Mocks
+    when(userQueryRepository.findById(any())).thenReturn(Optional.empty());
+
+    Assertions.assertThrows(
+        UserNotFoundException.class,
+        () -> userService.delete(1L),
+        "User not found exception should be thrown");
   }
 }